@@ -0,0 +1,56 @@
+// Reads and writes against the local blob store: whole-file GETs (sent with sendfile), Range GETs, conditional GETs
+// that should come back 304, and presigned PUT uploads to the pending prefix. The upload URLs are signed here the
+// same way LocalBlobStore signs them, so SIGNING_KEY must match foodies.blobstore.local.signing-key.
+//   k6 run -e BASE_URL=http://localhost:8080 -e SIGNING_KEY=... -e BLOBS=100 -e SIZE=262144 blobs.js
+import http from 'k6/http';
+import crypto from 'k6/crypto';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SIGNING_KEY = __ENV.SIGNING_KEY || 'load-test-key';
+const BLOBS = Number(__ENV.BLOBS || 100); // bench-0.jpg .. bench-(BLOBS-1).jpg, written by run-blobs.sh
+const SIZE = Number(__ENV.SIZE || 262144);
+const DURATION = __ENV.DURATION || '60s';
+const VUS = Number(__ENV.VUS || 200);
+
+// A submetric is only in the summary when a threshold names it; these limits just keep them there
+const perKind = {};
+for (const kind of ['full', 'range', 'conditional', 'upload']) {
+    perKind[`http_req_duration{kind:${kind}}`] = ['p(99)<60000'];
+    perKind[`http_reqs{kind:${kind}}`] = ['count>=0'];
+}
+
+export const options = {
+    scenarios: {
+        reads: { executor: 'constant-vus', exec: 'read', vus: VUS, duration: DURATION },
+        uploads: { executor: 'constant-vus', exec: 'upload', vus: Math.max(1, Math.floor(VUS / 10)), duration: DURATION },
+    },
+    thresholds: perKind,
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    discardResponseBodies: true,
+};
+
+const body = crypto.randomBytes(SIZE);
+
+export function read() {
+    const url = `${BASE_URL}/api/blobs/bench-${Math.floor(Math.random() * BLOBS)}.jpg`;
+    const full = http.get(url, { tags: { kind: 'full' } });
+    check(full, { 'full GET is 200': (r) => r.status === 200 });
+
+    const offset = Math.floor(Math.random() * Math.max(1, SIZE - 65536));
+    const range = http.get(url, { headers: { Range: `bytes=${offset}-${Math.min(SIZE, offset + 65536) - 1}` }, tags: { kind: 'range' } });
+    check(range, { 'Range GET is 206': (r) => r.status === 206 });
+
+    const etag = full.headers['Etag'];
+    const conditional = http.get(url, { headers: { 'If-None-Match': etag }, tags: { kind: 'conditional' } });
+    check(conditional, { 'conditional GET is 304': (r) => r.status === 304 });
+}
+
+export function upload() {
+    const key = `pending/load-${__VU}-${__ITER}.jpg`;
+    const expires = Math.floor(Date.now() / 1000) + 300;
+    const signature = crypto.hmac('sha256', SIGNING_KEY, [key, 'image/jpeg', SIZE, expires].join('\n'), 'hex');
+    const res = http.put(`${BASE_URL}/api/blobs/${key}?expires=${expires}&signature=${signature}`, body,
+        { headers: { 'Content-Type': 'image/jpeg' }, tags: { kind: 'upload' } });
+    check(res, { 'upload is 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,34 @@
+// Many concurrent clients paging through the menu with GET /api/foods/page. Every page is a MongoDB query,
+// so each request spends most of its time blocked on the database, which is what virtual threads are for.
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=1000 -e DURATION=60s catalog-page.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SORTS = ['name', 'price'];
+
+export const options = {
+    scenarios: {
+        pages: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '15s', target: Number(__ENV.VUS || 1000) },
+                { duration: __ENV.DURATION || '60s', target: Number(__ENV.VUS || 1000) },
+            ],
+            gracefulRampDown: '5s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    // Follow the cursor for a few pages, as a client scrolling the menu would
+    let url = `${BASE_URL}/api/foods/page?limit=20&sort=${SORTS[__ITER % SORTS.length]}`;
+    for (let page = 0; page < 3 && url; page++) {
+        const res = http.get(url, { tags: { name: 'GET /api/foods/page' } });
+        check(res, { 'status is 200': (r) => r.status === 200 });
+        const cursor = res.status === 200 ? res.json('nextCursor') : null;
+        url = cursor ? `${BASE_URL}/api/foods/page?limit=20&sort=${SORTS[__ITER % SORTS.length]}&cursor=${encodeURIComponent(cursor)}` : null;
+    }
+}
@@ -0,0 +1,24 @@
+#!/usr/bin/env bash
+# Runs catalog-page.js against the application with Tomcat on platform threads, then on virtual threads,
+# and prints throughput and latency for both. Needs java, k6, curl and jq.
+#   ./compare-threads.sh [vus] [duration]
+set -euo pipefail
+cd "$(dirname "$0")"
+. ./lib.sh
+
+VUS=${1:-1000}
+DURATION=${2:-60s}
+mkdir -p results
+trap stop_app EXIT
+
+for virtual in false true; do
+    # Pinned virtual threads (synchronized blocks around blocking calls) show up in the log
+    JAVA_OPTS="${JAVA_OPTS:-} -Djdk.tracePinnedThreads=short" \
+        start_app "results/app-virtual-$virtual.log" --spring.threads.virtual.enabled="$virtual"
+    k6 run --quiet -e BASE_URL="$BASE_URL" -e VUS="$VUS" -e DURATION="$DURATION" \
+        --summary-export "results/threads-virtual-$virtual.json" catalog-page.js
+    stop_app
+done
+
+report results/threads-virtual-false.json "platform threads"
+report results/threads-virtual-true.json "virtual threads"
@@ -0,0 +1,50 @@
+# Shared by the load scripts: starts the application jar in the background and stops it again.
+# The usual settings (MongoDB, jwt.secret.key, aws.s3.bucketname, ...) come from the environment or an
+# application.properties next to the jar, as for a normal start.
+
+APP_JAR=${APP_JAR:-../../target/foodie_backend-0.0.1-SNAPSHOT.jar}
+PORT=${PORT:-8080}
+BASE_URL=http://localhost:$PORT
+APP_PID=
+
+# start_app <log file> [application arguments...]
+start_app() {
+    local log=$1
+    shift
+    java ${JAVA_OPTS:-} -jar "$APP_JAR" --server.port="$PORT" "$@" >"$log" 2>&1 &
+    APP_PID=$!
+    local status
+    for _ in $(seq 1 120); do
+        status=$(curl -s -o /dev/null -w '%{http_code}' "$BASE_URL/actuator/health" || true)
+        if [ "$status" = 200 ]; then
+            return 0
+        fi
+        # Up but refusing the probe: waiting longer won't help
+        if [ "$status" = 401 ] || [ "$status" = 403 ]; then
+            echo "/actuator/health answered $status; it must be public for the load scripts" >&2
+            stop_app
+            return 1
+        fi
+        if ! kill -0 "$APP_PID" 2>/dev/null; then
+            echo "Application exited during startup, see $log" >&2
+            return 1
+        fi
+        sleep 1
+    done
+    echo "Application not healthy after 120s, see $log" >&2
+    stop_app
+    return 1
+}
+
+stop_app() {
+    if [ -n "$APP_PID" ]; then
+        kill "$APP_PID" 2>/dev/null || true
+        wait "$APP_PID" 2>/dev/null || true
+        APP_PID=
+    fi
+}
+
+# report <summary json> <label>: throughput and latency percentiles from a k6 --summary-export file
+report() {
+    jq -r --arg name "$2" '"\($name): \(.metrics.http_reqs.rate | floor) req/s, p50 \(.metrics.http_req_duration["p(50)"])ms, p99 \(.metrics.http_req_duration["p(99)"])ms, failed \(.metrics.http_req_failed.value * 100)%"' "$1"
+}
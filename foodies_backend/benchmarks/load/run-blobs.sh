@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Starts the application with the local blob store in a scratch directory, seeds it with random files, runs blobs.js
+# and prints throughput and latency per kind of request. Needs java, k6, curl and jq.
+#   ./run-blobs.sh [vus] [duration] [blob size in bytes]
+set -euo pipefail
+cd "$(dirname "$0")"
+. ./lib.sh
+
+VUS=${1:-200}
+DURATION=${2:-60s}
+SIZE=${3:-262144}
+BLOBS=${BLOBS:-100}
+SIGNING_KEY=load-test-key
+ROOT=$(mktemp -d)
+mkdir -p results
+trap 'stop_app; rm -rf "$ROOT"' EXIT
+
+for i in $(seq 0 $((BLOBS - 1))); do
+    head -c "$SIZE" /dev/urandom >"$ROOT/bench-$i.jpg"
+done
+
+start_app results/app-blobs.log --foodies.blobstore=local --foodies.blobstore.local.root="$ROOT" \
+    --foodies.blobstore.local.base-url="$BASE_URL" --foodies.blobstore.local.signing-key="$SIGNING_KEY"
+# Healthy doesn't mean the local store is in use; without it /api/blobs isn't mapped and every request would fail
+if ! curl -fs -o /dev/null -r 0-0 "$BASE_URL/api/blobs/bench-0.jpg"; then
+    echo "The application doesn't serve the seeded blobs; is foodies.blobstore=local overridden? See results/app-blobs.log" >&2
+    exit 1
+fi
+k6 run --quiet -e BASE_URL="$BASE_URL" -e SIGNING_KEY="$SIGNING_KEY" -e BLOBS="$BLOBS" -e SIZE="$SIZE" \
+    -e VUS="$VUS" -e DURATION="$DURATION" --summary-export results/blobs.json blobs.js
+
+jq -r '.metrics | to_entries[] | select(.key | startswith("http_req_duration{kind:"))
+    | "\(.key | ltrimstr("http_req_duration{kind:") | rtrimstr("}")): p50 \(.value["p(50)"])ms, p99 \(.value["p(99)"])ms"' results/blobs.json
+report results/blobs.json "all requests"
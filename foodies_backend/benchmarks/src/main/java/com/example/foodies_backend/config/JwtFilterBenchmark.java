@@ -0,0 +1,84 @@
+package com.example.foodies_backend.config;
+
+import com.example.foodies_backend.service.AppUserDetails;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The token work JwtAuthenticationFilter does per request. Before, the key and parser were rebuilt on every parse and
+// the filter parsed the token three times (username, then username and expiry again to validate); now it is parsed
+// once with a parser built at startup, and a token seen recently is answered from the verified-token cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-hs256";
+
+private JwtUtil jwtUtil;
+private JwtParser parser;
+private String token;
+
+@Setup
+public void issueToken() throws ReflectiveOperationException {
+    jwtUtil = new JwtUtil();
+    set(jwtUtil, "SECRET_KEY", SECRET);
+    set(jwtUtil, "accessTokenTtlMillis", TimeUnit.HOURS.toMillis(1));
+    set(jwtUtil, "verifiedCacheSize", 10_000);
+    jwtUtil.init();
+    parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes())).build();
+    token = jwtUtil.generateToken(new AppUserDetails("64f1c0ffee", "diner@foodies.test", "", List.of()));
+}
+
+@Benchmark
+public boolean rebuiltParserThreeParses() {
+    String username = rebuiltParse(token).getSubject();
+    boolean sameUser = rebuiltParse(token).getSubject().equals(username);
+    return sameUser && !rebuiltParse(token).getExpiration().before(new Date());
+}
+
+@Benchmark
+public boolean sharedParserOneParse() {
+    Claims claims = parser.parseClaimsJws(token).getBody();
+    return claims.getSubject() != null && !claims.getExpiration().before(new Date());
+}
+
+@Benchmark
+public boolean verifiedTokenCacheHit() {
+    Claims claims = jwtUtil.parseClaims(token);
+    return claims.getSubject() != null && !claims.getExpiration().before(new Date());
+}
+
+private static Claims rebuiltParse(String token) {
+    return Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+}
+
+private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+    Field field = target.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+}
+}
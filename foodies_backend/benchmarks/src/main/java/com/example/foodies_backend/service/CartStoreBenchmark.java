@@ -0,0 +1,89 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.repository.CartRespository;
+import com.example.foodies_backend.repository.CartRespositoryCustomImpl;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Cart changes from many request threads at once: "mongo" writes each change with one findAndModify, "write-behind"
+// applies it in memory under a stripe lock and writes changed carts in batches every 500 ms.
+// Needs a mongod at MONGODB_URI (default mongodb://localhost:27017); the carts go to the foodies_bench database.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class CartStoreBenchmark {
+
+@Param({"mongo", "write-behind"})
+String store;
+
+// Users whose carts receive the changes; fewer users means more changes per cart between two flushes
+@Param({"100", "10000"})
+int users;
+
+private MongoClient client;
+private CartStore cartStore;
+private WriteBehindCartStore writeBehind;
+
+@Setup
+public void connect() {
+    String uri = System.getenv().getOrDefault("MONGODB_URI", "mongodb://localhost:27017");
+    client = MongoClients.create(uri);
+    MongoTemplate mongoTemplate = new MongoTemplate(client, "foodies_bench");
+    mongoTemplate.dropCollection(CartEntity.class);
+    mongoTemplate.indexOps(CartEntity.class).ensureIndex(new Index("userId", Sort.Direction.ASC).unique());
+    CartRespository cartRespository = new MongoRepositoryFactory(mongoTemplate).getRepository(CartRespository.class,
+            RepositoryComposition.RepositoryFragments.just(new CartRespositoryCustomImpl(mongoTemplate)));
+
+    if (store.equals("write-behind")) {
+        writeBehind = new WriteBehindCartStore(cartRespository, mongoTemplate, new SimpleMeterRegistry(),
+                new TaskThreads(false, 1), 500, 500, 600_000);
+        writeBehind.start();
+        cartStore = writeBehind;
+    } else {
+        cartStore = new MongoCartStore(cartRespository, mongoTemplate);
+    }
+}
+
+@TearDown
+public void disconnect() throws InterruptedException {
+    if (writeBehind != null) {
+        writeBehind.stop(); // Includes the final flush, so the pending writes are not left out
+    }
+    client.close();
+}
+
+@Benchmark
+public CartEntity addItem() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return cartStore.applyChanges("user-" + random.nextInt(users), Map.of("food" + random.nextInt(20), 1), Map.of(), true);
+}
+}
@@ -0,0 +1,92 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.dto.FoodResponse;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// The body of GET /api/foods. Before the catalog kept pre-built payloads, every request serialized the food list with
+// Jackson and, for clients accepting gzip, compressed it; now the controller copies bytes built once per snapshot.
+// Each benchmark writes the body to a reused buffer, standing in for the response buffer.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogBenchmark {
+
+@Param({"50", "500"})
+int foods;
+
+private ObjectMapper objectMapper;
+private List<FoodResponse> menu;
+private FoodCatalog catalog;
+private final ByteArrayOutputStream response = new ByteArrayOutputStream(1 << 20);
+
+@Setup
+public void buildMenu() {
+    objectMapper = new ObjectMapper();
+    menu = new ArrayList<>(foods);
+    for (int i = 0; i < foods; i++) {
+        menu.add(FoodResponse.builder()
+                .id(String.format("%024x", i))
+                .name("Food " + i)
+                .description("Freshly made food number " + i + ", served hot with a side of your choice")
+                .category(i % 3 == 0 ? "Rice" : i % 3 == 1 ? "Soup" : "Grill")
+                .price(5 + i % 40)
+                .imageUrl("https://foodies.s3.amazonaws.com/" + i + ".jpg")
+                .imageVariants(Map.of("thumb", "https://foodies.s3.amazonaws.com/" + i + "-thumb.jpg"))
+                .build());
+    }
+    catalog = FoodCatalog.of(1, menu, objectMapper.writerFor(new TypeReference<List<FoodResponse>>() {}));
+}
+
+@Benchmark
+public int serializePerRequest() throws IOException {
+    response.reset();
+    objectMapper.writeValue(response, menu);
+    return response.size();
+}
+
+@Benchmark
+public int serializeAndGzipPerRequest() throws IOException {
+    response.reset();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(response)) {
+        objectMapper.writeValue(gzip, menu);
+    }
+    return response.size();
+}
+
+@Benchmark
+public int preSerialized() {
+    response.reset();
+    response.writeBytes(catalog.getJson());
+    return response.size();
+}
+
+@Benchmark
+public int preGzipped() {
+    response.reset();
+    response.writeBytes(catalog.getGzipJson());
+    return response.size();
+}
+}
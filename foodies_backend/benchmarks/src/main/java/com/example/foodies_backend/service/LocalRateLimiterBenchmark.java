@@ -0,0 +1,64 @@
+package com.example.foodies_backend.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// The cost RateLimitFilter adds to each request: one tryAcquire against buckets that never run out, from one thread
+// and from eight at once, so the lock stripes are exercised. With more keys than max-keys the stripes also evict.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalRateLimiterBenchmark {
+
+@Param({"1024", "1000000"})
+private int keys;
+
+private LocalRateLimiter limiter;
+private String[] keyNames;
+
+@Setup
+public void createLimiter() {
+    limiter = new LocalRateLimiter(200_000);
+    keyNames = new String[keys];
+    for (int i = 0; i < keys; i++) {
+        keyNames[i] = "ip:10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255);
+    }
+}
+
+// Each thread walks the keys from its own starting point
+@State(Scope.Thread)
+public static class Cursor {
+    private int next = (int) (Thread.currentThread().threadId() * 7919);
+}
+
+@Benchmark
+public long oneThread(Cursor cursor) {
+    return check(cursor);
+}
+
+@Benchmark
+@Threads(8)
+public long eightThreads(Cursor cursor) {
+    return check(cursor);
+}
+
+private long check(Cursor cursor) {
+    String key = keyNames[Math.floorMod(cursor.next++, keys)];
+    return limiter.tryAcquire(key, 1_000_000, 1000);
+}
+}
@@ -2,15 +2,22 @@ package com.example.foodies_backend.config;
 
 // Importing necessary Spring and AWS SDK classes
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
-// Marking this class as a configuration class for Spring
+import java.net.URI;
+
+// Marking this class as a configuration class for Spring; only needed while blobs are kept in S3
 @Configuration
+@ConditionalOnProperty(name = "foodies.blobstore", havingValue = "s3", matchIfMissing = true)
 public class AWSConfig {
 
 // Injecting the AWS access key from the application properties
@@ -25,15 +32,40 @@ private String secretKey;
 @Value("${aws.region}")
 private String region;
 
+// Optional endpoint of an S3-compatible store (e.g. MinIO or LocalStack); empty means AWS itself
+@Value("${aws.s3.endpoint:}")
+private String endpoint;
+
 // Defining a bean for the S3Client to interact with AWS S3
 @Bean
 public S3Client s3Client() {
-	return S3Client.builder()
+	S3ClientBuilder builder = S3Client.builder()
 			// Setting the AWS region for the S3 client
 			.region(Region.of(region))
 			// Providing static credentials (access key and secret key) for authentication
-			.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
-			// Building and returning the S3 client instance
-			.build();
+			.credentialsProvider(credentials());
+	if (!endpoint.isEmpty()) {
+		// S3-compatible stand-ins are addressed by path (host/bucket/key) rather than by bucket subdomain
+		builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+	}
+	// Building and returning the S3 client instance
+	return builder.build();
+}
+
+// Defining a bean for the S3Presigner that signs short-lived URLs for direct browser uploads
+@Bean
+public S3Presigner s3Presigner() {
+	S3Presigner.Builder builder = S3Presigner.builder()
+			.region(Region.of(region))
+			.credentialsProvider(credentials());
+	if (!endpoint.isEmpty()) {
+		builder.endpointOverride(URI.create(endpoint))
+				.serviceConfiguration(S3Configuration.builder().pathStyleAccessEnabled(true).build());
+	}
+	return builder.build();
+}
+
+private StaticCredentialsProvider credentials() {
+	return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
 }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+// The `BoundedPasswordEncoder` class runs BCrypt on its own small pool instead of on request threads.
+// A cost-12 hash takes a whole core for a few hundred milliseconds, so a login burst on request threads takes every
+// core and starves cheap traffic. Here at most `threads` hashes run at once and at most `queue-size` wait; anything
+// beyond that, or anything that waits in the queue longer than max-wait-ms, is refused right away with a 429 and a
+// Retry-After. A hash that has started is always allowed to finish.
+package com.example.foodies_backend.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+private final PasswordEncoder delegate;
+private final ThreadPoolExecutor executor;
+private final long maxWaitMillis;
+private final int threads;
+
+private final Timer queueWait;
+private final Timer encodeTime;
+private final Timer matchTime;
+private final Counter rejected;
+// Moving average of one hash, used to tell refused clients how long the backlog takes to clear
+private volatile double averageHashMillis = 250;
+
+@Autowired
+public BoundedPasswordEncoder(TaskThreads taskThreads,
+                              MeterRegistry meterRegistry,
+                              @Value("${foodies.password.threads:0}") int threads,
+                              @Value("${foodies.password.queue-size:64}") int queueSize,
+                              @Value("${foodies.password.max-wait-ms:2000}") long maxWaitMillis) {
+    this(new BCryptPasswordEncoder(12), taskThreads, meterRegistry, threads, queueSize, maxWaitMillis);
+}
+
+BoundedPasswordEncoder(PasswordEncoder delegate, TaskThreads taskThreads, MeterRegistry meterRegistry,
+                       int threads, int queueSize, long maxWaitMillis) {
+    this.delegate = delegate;
+    // By default half the cores, so hashing can never take the whole machine
+    this.threads = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    this.maxWaitMillis = maxWaitMillis;
+    this.executor = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize), taskThreads.factory("password-hashing"));
+    this.queueWait = Timer.builder("foodies.password.queue.wait")
+            .description("Time a password hash waited for a hashing thread")
+            .register(meterRegistry);
+    this.encodeTime = Timer.builder("foodies.password.hash")
+            .description("Time spent hashing or checking a password")
+            .tag("operation", "encode")
+            .register(meterRegistry);
+    this.matchTime = Timer.builder("foodies.password.hash")
+            .description("Time spent hashing or checking a password")
+            .tag("operation", "matches")
+            .register(meterRegistry);
+    this.rejected = Counter.builder("foodies.password.rejected")
+            .description("Password hashes refused because the pool was saturated")
+            .register(meterRegistry);
+    Gauge.builder("foodies.password.queue.size", executor, pool -> pool.getQueue().size())
+            .description("Password hashes waiting for a thread")
+            .register(meterRegistry);
+}
+
+@PreDestroy
+void shutdown() {
+    executor.shutdown();
+}
+
+@Override
+public String encode(CharSequence rawPassword) {
+    return run(() -> delegate.encode(rawPassword), encodeTime);
+}
+
+@Override
+public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(() -> delegate.matches(rawPassword, encodedPassword), matchTime);
+}
+
+// Cheap: only looks at the stored hash's prefix
+@Override
+public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+}
+
+private <T> T run(Callable<T> hash, Timer hashTime) {
+    long queuedAt = System.nanoTime();
+    // Taken by whichever comes first: a hashing thread starting the hash, or the caller giving up on it
+    AtomicBoolean claimed = new AtomicBoolean();
+    CountDownLatch started = new CountDownLatch(1);
+    Future<T> result;
+    try {
+        result = executor.submit(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                throw new CancellationException("Caller stopped waiting for this hash");
+            }
+            started.countDown();
+            long startedAt = System.nanoTime();
+            queueWait.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                return hash.call();
+            } finally {
+                long took = System.nanoTime() - startedAt;
+                hashTime.record(took, TimeUnit.NANOSECONDS);
+                averageHashMillis = averageHashMillis * 0.9 + took / 1_000_000.0 * 0.1;
+            }
+        });
+    } catch (RejectedExecutionException ex) {
+        throw refuse();
+    }
+    try {
+        // max-wait only bounds the time in the queue; once a hash has started, its caller waits for the result
+        if (!started.await(maxWaitMillis, TimeUnit.MILLISECONDS) && claimed.compareAndSet(false, true)) {
+            abandon(result);
+            throw refuse();
+        }
+        return result.get();
+    } catch (InterruptedException ex) {
+        abandon(result);
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for a password hash", ex);
+    } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IllegalStateException(ex.getCause());
+    }
+}
+
+// Cancelling alone leaves a task that hasn't started in the queue, holding its slot until a thread picks it up;
+// removing it frees the slot right away
+private void abandon(Future<?> result) {
+    result.cancel(true);
+    executor.remove((Runnable) result);
+}
+
+private TooManyRequestsException refuse() {
+    rejected.increment();
+    // Time for the current backlog to clear, at least a second
+    double backlogMillis = (executor.getQueue().size() + executor.getActiveCount()) * averageHashMillis / threads;
+    long retryAfter = Math.max(1, (long) Math.ceil(backlogMillis / 1000));
+    return new TooManyRequestsException("Too many sign-ins right now, try again shortly", retryAfter);
+}
+}
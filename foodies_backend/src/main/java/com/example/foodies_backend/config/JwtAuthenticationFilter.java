@@ -1,7 +1,10 @@
 package com.example.foodies_backend.config;
 
 // Importing necessary classes for JWT authentication and request filtering
-import io.jsonwebtoken.ExpiredJwtException;
+import com.example.foodies_backend.service.AppUserDetails;
+import com.example.foodies_backend.service.TokenDenylist;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,12 +14,14 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
 
 // Marking this class as a Spring component to be managed by the Spring container
 @Component
@@ -30,26 +35,28 @@ private JwtUtil jwtUtil;
 @Autowired
 private UserDetailsService userDetailsService;
 
+// Injecting the in-memory list of revoked tokens
+@Autowired
+private TokenDenylist tokenDenylist;
+
 // Overriding the doFilterInternal method to handle JWT authentication
 @Override
 protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
     // Retrieving the Authorization header from the request
     final String authHeader = request.getHeader("Authorization");
 
-    // Checking if the header contains a Bearer token
-    if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")) {
+    // Checking if the header contains a Bearer token and the user is not already authenticated
+    if (StringUtils.hasText(authHeader) && authHeader.startsWith("Bearer ")
+            && SecurityContextHolder.getContext().getAuthentication() == null) {
         // Extracting the token from the header
         String token = authHeader.substring(7);
-        // Extracting the username (email) from the token
-        String email = jwtUtil.extractUsername(token);
+        try {
+            // Verifying the token once (signature and expiry) and reading all of its claims
+            Claims claims = jwtUtil.parseClaims(token);
+            // Building the principal from the verified claims, unless the token was revoked (checked in memory)
+            UserDetails userDetails = tokenDenylist.isRevoked(claims.getId()) ? null : resolveUser(claims);
 
-        // Checking if the username is not null and the user is not already authenticated
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Loading user details using the username
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-            // Validating the token with the user details
-            if (jwtUtil.validateToken(token, userDetails)) {
+            if (userDetails != null) {
                 // Creating an authentication token with user details and authorities
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
@@ -59,9 +66,25 @@ protected void doFilterInternal(HttpServletRequest request, HttpServletResponse
                 // Setting the authentication in the security context
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
             }
+        } catch (JwtException | IllegalArgumentException | UsernameNotFoundException ex) {
+            // Invalid, expired or orphaned token: continuing unauthenticated so protected endpoints reject the request
         }
     }
     // Proceeding with the filter chain
     filterChain.doFilter(request, response);
 }
+
+// Building the principal from the token claims, without a database read when the token carries the user id
+private UserDetails resolveUser(Claims claims) {
+    String email = claims.getSubject();
+    if (email == null) {
+        return null;
+    }
+    String userId = claims.get(JwtUtil.USER_ID_CLAIM, String.class);
+    if (userId != null) {
+        return new AppUserDetails(userId, email, "", Collections.emptyList());
+    }
+    // Tokens issued before the user id claim was added still need a lookup
+    return userDetailsService.loadUserByUsername(email);
+}
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.example.foodies_backend.config;
 
 // Importing necessary classes for JWT operations and Spring components
+import com.example.foodies_backend.service.AppUserDetails;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -11,24 +13,53 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 // Marking this class as a Spring component to be managed by the Spring container
 @Component
 public class JwtUtil {
 
+// Name of the signed claim carrying the user's database id
+public static final String USER_ID_CLAIM = "uid";
+
 // Injecting the secret key for JWT signing from application properties
 @Value("${jwt.secret.key}")
 private String SECRET_KEY;
 
-// Method to generate the signing key using the secret key
+// Injecting the access token lifetime; short, since clients renew it with their refresh token
+@Value("${jwt.access-token-ttl-ms:900000}")
+private long accessTokenTtlMillis;
+
+// Injecting the maximum number of verified tokens kept in memory
+@Value("${jwt.verified-cache.size:10000}")
+private int verifiedCacheSize;
+
+private Key signingKey; // HMAC key, built once from the secret
+private JwtParser jwtParser; // Thread-safe parser bound to the signing key, built once
+private VerifiedTokenCache verifiedTokens; // Recently verified tokens and their claims
+
+// Building the signing key, the parser and the verified-token cache once at startup
+@PostConstruct
+void init() {
+    signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes()); // Using HMAC-SHA for signing
+    jwtParser = Jwts.parserBuilder()
+            .setSigningKey(signingKey) // Setting the signing key for validation
+            .build();
+    verifiedTokens = new VerifiedTokenCache(verifiedCacheSize);
+}
+
+// Method to return the signing key
 private Key getSigningKey() {
-    return Keys.hmacShaKeyFor(SECRET_KEY.getBytes()); // Using HMAC-SHA for signing
+    return signingKey;
 }
 
 // Method to generate a JWT token for a given user
 public String generateToken(UserDetails userDetails) {
-    Map<String, Object> claims = new HashMap<>(); // Initializing claims (empty in this case)
+    Map<String, Object> claims = new HashMap<>(); // Initializing claims
+    if (userDetails instanceof AppUserDetails appUser) {
+        claims.put(USER_ID_CLAIM, appUser.getId()); // Embedding the user id so requests need no user lookup
+    }
     return createToken(claims, userDetails.getUsername()); // Creating the token with claims and username
 }
 
@@ -37,8 +68,9 @@ private String createToken(Map<String, Object> claims, String subject) {
     return Jwts.builder()
             .setClaims(claims) // Setting claims in the token
             .setSubject(subject) // Setting the subject (username)
+            .setId(UUID.randomUUID().toString()) // Setting a unique id, so this one token can be revoked
             .setIssuedAt(new Date(System.currentTimeMillis())) // Setting the issue date
-            .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24 * 10)) // Setting expiration (10 days)
+            .setExpiration(new Date(System.currentTimeMillis() + accessTokenTtlMillis)) // Setting expiration (15 minutes by default)
             .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Signing the token with the secret key
             .compact(); // Compacting the token into a string
 }
@@ -55,16 +87,26 @@ public Date extractExpiration(String token) {
 
 // Generic method to extract a specific claim from a token
 public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-    final Claims claims = extractAllClaims(token); // Extracting all claims
+    final Claims claims = parseClaims(token); // Extracting all claims
     return claimsResolver.apply(claims); // Resolving the specific claim
 }
 
+// Method to verify a token (signature and expiry) once and return all of its claims,
+// answering from the verified-token cache when the same token was seen recently
+public Claims parseClaims(String token) {
+    Claims cached = verifiedTokens.get(token);
+    if (cached != null) {
+        return cached;
+    }
+    Claims claims = extractAllClaims(token);
+    verifiedTokens.put(token, claims);
+    return claims;
+}
+
 // Method to extract all claims from a token
 private Claims extractAllClaims(String token) {
-    return Jwts.parserBuilder()
-            .setSigningKey(getSigningKey()) // Setting the signing key for validation
-            .build()
-            .parseClaimsJws(token) // Parsing the token
+    return jwtParser
+            .parseClaimsJws(token) // Parsing and verifying the token
             .getBody(); // Retrieving the claims body
 }
 
@@ -75,7 +117,7 @@ private Boolean isTokenExpired(String token) {
 
 // Method to validate a token against user details
 public Boolean validateToken(String token, UserDetails userDetails) {
-    final String username = extractUsername(token); // Extracting the username from the token
-    return (username.equals(userDetails.getUsername()) && !isTokenExpired(token)); // Validating username and expiration
+    final Claims claims = parseClaims(token); // Parsing the token once for both checks
+    return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date())); // Validating username and expiration
 }
 }
\ No newline at end of file
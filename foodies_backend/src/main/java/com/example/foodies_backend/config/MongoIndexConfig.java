@@ -0,0 +1,124 @@
+package com.example.foodies_backend.config;
+
+// Importing necessary classes for creating MongoDB indexes at startup
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.entity.EmailDeadLetterEntity;
+import com.example.foodies_backend.entity.EmailOutboxEntity;
+import com.example.foodies_backend.entity.FoodEntity;
+import com.example.foodies_backend.entity.IdempotencyKeyEntity;
+import com.example.foodies_backend.entity.OrderEntity;
+import com.example.foodies_backend.entity.PaymentEventEntity;
+import com.example.foodies_backend.entity.PendingUploadEntity;
+import com.example.foodies_backend.entity.RateLimitEntity;
+import com.example.foodies_backend.entity.RefreshTokenEntity;
+import com.example.foodies_backend.entity.RevokedTokenEntity;
+import com.example.foodies_backend.entity.UserEntity;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Marking this class as a configuration class for Spring
+@Configuration
+// Generating a constructor with all required fields using Lombok
+@AllArgsConstructor
+public class MongoIndexConfig {
+
+private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+// Entities whose annotated indexes are created at startup (Spring Boot does not auto-create them by default)
+private static final List<Class<?>> INDEXED_ENTITIES = List.of(UserEntity.class, FoodEntity.class, CartEntity.class, PaymentEventEntity.class, IdempotencyKeyEntity.class, OrderEntity.class,
+        EmailOutboxEntity.class, EmailDeadLetterEntity.class, RefreshTokenEntity.class, RateLimitEntity.class, RevokedTokenEntity.class,
+        PendingUploadEntity.class);
+
+private final MongoTemplate mongoTemplate;
+private final MongoMappingContext mappingContext;
+
+// Creating the indexes declared on the entities once the application has started, then checking they are all there
+@EventListener(ApplicationReadyEvent.class)
+public void ensureIndexes() {
+    IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+    int problems = 0;
+    for (Class<?> entityType : INDEXED_ENTITIES) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entityType);
+        List<IndexDefinition> declared = new ArrayList<>();
+        resolver.resolveIndexFor(entityType).forEach(declared::add);
+        for (IndexDefinition index : declared) {
+            try {
+                indexOps.ensureIndex(index);
+            } catch (DataAccessException ex) {
+                // E.g. existing duplicates blocking a unique index: keep running, but make it visible
+                log.error("Could not create index {} on {}", index.getIndexKeys(), entityType.getSimpleName(), ex);
+            }
+        }
+        problems += verify(entityType, declared, indexOps.getIndexInfo());
+        log.info("Ensured indexes for {}", entityType.getSimpleName());
+    }
+    if (problems > 0) {
+        log.error("{} declared MongoDB indexes are missing or differ; the queries they serve are collection scans", problems);
+    }
+}
+
+// Comparing the indexes a collection actually has with the declared ones: an index that could not be built, or an
+// older one with the same keys but other options, is reported here instead of surfacing later as a slow query
+private static int verify(Class<?> entityType, List<IndexDefinition> declared, List<IndexInfo> existing) {
+    int problems = 0;
+    for (IndexDefinition index : declared) {
+        Document keys = index.getIndexKeys();
+        Document options = index.getIndexOptions();
+        Optional<IndexInfo> match = existing.stream().filter(info -> sameKeys(keys, info)).findFirst();
+        if (match.isEmpty()) {
+            log.error("Index {} is missing on {}", keys.toJson(), entityType.getSimpleName());
+            problems++;
+            continue;
+        }
+        IndexInfo info = match.get();
+        boolean unique = Boolean.TRUE.equals(options.get("unique"));
+        Optional<Duration> expireAfter = options.get("expireAfterSeconds") instanceof Number seconds
+                ? Optional.of(Duration.ofSeconds(seconds.longValue()))
+                : Optional.empty();
+        if (info.isUnique() != unique || !info.getExpireAfter().equals(expireAfter)) {
+            log.error("Index {} on {} exists as {} with unique={} expireAfter={}, declared unique={} expireAfter={}",
+                    keys.toJson(), entityType.getSimpleName(), info.getName(), info.isUnique(),
+                    info.getExpireAfter().orElse(null), unique, expireAfter.orElse(null));
+            problems++;
+        }
+    }
+    return problems;
+}
+
+// Same fields in the same order and direction
+private static boolean sameKeys(Document keys, IndexInfo info) {
+    if (keys.size() != info.getIndexFields().size()) {
+        return false;
+    }
+    int i = 0;
+    for (Map.Entry<String, Object> key : keys.entrySet()) {
+        IndexField field = info.getIndexFields().get(i++);
+        int direction = field.getDirection() == Sort.Direction.DESC ? -1 : 1;
+        if (!key.getKey().equals(field.getKey()) || !(key.getValue() instanceof Number n) || n.intValue() != direction) {
+            return false;
+        }
+    }
+    return true;
+}
+}
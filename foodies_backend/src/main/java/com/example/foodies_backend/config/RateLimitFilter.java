@@ -0,0 +1,189 @@
+// The `RateLimitFilter` class throttles the sign-in and password endpoints before any password hash, user lookup or email.
+// Every request to them takes a token from the bucket of its client IP; login, register and forgot-password also take
+// one from the bucket of the email they name, so one account can't be hammered from many addresses.
+// The client IP is the connection's remote address; behind a proxy set server.forward-headers-strategy so it is the real one.
+package com.example.foodies_backend.config;
+
+import com.example.foodies_backend.service.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+// Endpoints that are limited by client IP
+private static final Set<String> LIMITED = Set.of("/api/login", "/api/register", "/api/forgot-password", "/api/reset-password", "/api/token/refresh");
+// Endpoints that name an account and are limited by that email too
+private static final Set<String> BY_EMAIL = Set.of("/api/login", "/api/register", "/api/forgot-password");
+// Sign-in bodies are tiny; larger ones are passed on without reading an email from them
+private static final int MAX_BODY_BYTES = 16 * 1024;
+
+private final RateLimiter rateLimiter;
+private final ObjectMapper objectMapper;
+private final int ipCapacity;
+private final double ipRefillPerSecond;
+private final int emailCapacity;
+private final double emailRefillPerSecond;
+
+private final Timer checkTime;
+private final Counter rejectedByIp;
+private final Counter rejectedByEmail;
+
+public RateLimitFilter(RateLimiter rateLimiter,
+                       ObjectMapper objectMapper,
+                       MeterRegistry meterRegistry,
+                       @Value("${foodies.ratelimit.ip.capacity:30}") int ipCapacity,
+                       @Value("${foodies.ratelimit.ip.refill-per-minute:30}") double ipRefillPerMinute,
+                       @Value("${foodies.ratelimit.email.capacity:5}") int emailCapacity,
+                       @Value("${foodies.ratelimit.email.refill-per-minute:5}") double emailRefillPerMinute) {
+    this.rateLimiter = rateLimiter;
+    this.objectMapper = objectMapper;
+    this.ipCapacity = ipCapacity;
+    this.ipRefillPerSecond = ipRefillPerMinute / 60;
+    this.emailCapacity = emailCapacity;
+    this.emailRefillPerSecond = emailRefillPerMinute / 60;
+    this.checkTime = Timer.builder("foodies.ratelimit.check")
+            .description("Time spent deciding whether a request is within its limits")
+            .register(meterRegistry);
+    this.rejectedByIp = Counter.builder("foodies.ratelimit.rejected")
+            .description("Requests refused by the rate limiter")
+            .tag("key", "ip")
+            .register(meterRegistry);
+    this.rejectedByEmail = Counter.builder("foodies.ratelimit.rejected")
+            .description("Requests refused by the rate limiter")
+            .tag("key", "email")
+            .register(meterRegistry);
+}
+
+@Override
+protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !"POST".equals(request.getMethod()) || !LIMITED.contains(request.getRequestURI());
+}
+
+@Override
+protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+    long start = System.nanoTime();
+    HttpServletRequest checked = request;
+    long waitMillis = rateLimiter.tryAcquire("ip:" + request.getRemoteAddr(), ipCapacity, ipRefillPerSecond);
+    if (waitMillis > 0) {
+        rejectedByIp.increment();
+    } else if (BY_EMAIL.contains(request.getRequestURI())) {
+        CachedBodyRequest cached = CachedBodyRequest.of(request);
+        checked = cached;
+        String email = email(cached);
+        if (email != null) {
+            waitMillis = rateLimiter.tryAcquire("email:" + email, emailCapacity, emailRefillPerSecond);
+            if (waitMillis > 0) {
+                rejectedByEmail.increment();
+            }
+        }
+    }
+    checkTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+    if (waitMillis > 0) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, (waitMillis + 999) / 1000)));
+        response.sendError(429, "Too many requests, try again later");
+        return;
+    }
+    filterChain.doFilter(checked, response);
+}
+
+// The email a request is about: the email parameter, or the email field of a JSON body
+private String email(CachedBodyRequest request) {
+    String email = request.getParameter("email");
+    if (email == null && request.body != null && request.body.length > 0) {
+        try {
+            JsonNode body = objectMapper.readTree(request.body);
+            email = body == null ? null : body.path("email").asText(null);
+        } catch (IOException ex) {
+            // Not JSON; the controller will reject it
+        }
+    }
+    return email == null || email.isBlank() ? null : email.trim().toLowerCase();
+}
+
+// Reads the (small) body once so it can be inspected here and read again by the controller
+private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+        super(request);
+        this.body = body;
+    }
+
+    static CachedBodyRequest of(HttpServletRequest request) throws IOException {
+        long length = request.getContentLengthLong();
+        boolean json = request.getContentType() != null && request.getContentType().startsWith("application/json");
+        if (!json || length < 0 || length > MAX_BODY_BYTES) {
+            // Chunked or large bodies are passed on untouched; the IP limit still applies to them
+            return new CachedBodyRequest(request, null);
+        }
+        return new CachedBodyRequest(request, request.getInputStream().readNBytes((int) length));
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (body == null) {
+            return super.getInputStream();
+        }
+        ByteArrayInputStream in = new ByteArrayInputStream(body);
+        return new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                return in.read(b, off, len);
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                throw new UnsupportedOperationException("Body is already read");
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (body == null) {
+            return super.getReader();
+        }
+        return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+    }
+}
+}
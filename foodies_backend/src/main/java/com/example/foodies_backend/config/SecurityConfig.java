@@ -2,6 +2,7 @@ package com.example.foodies_backend.config;
 
 // Importing necessary classes and annotations for configuration and security
 import com.example.foodies_backend.service.AppUserDetailsService;
+import jakarta.servlet.DispatcherType;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,7 +12,6 @@ import org.springframework.security.authentication.dao.DaoAuthenticationProvider
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -33,6 +33,10 @@ public class SecurityConfig {
 private final AppUserDetailsService userDetailsService;
 // Injecting a custom JWT authentication filter
 private final JwtAuthenticationFilter jwtAuthenticationFilter;
+// Injecting the rate limit filter for the sign-in and password endpoints
+private final RateLimitFilter rateLimitFilter;
+// Injecting the password encoder: BCrypt with a strength of 12, run on a bounded pool (see BoundedPasswordEncoder)
+private final PasswordEncoder passwordEncoder;
 
 // Defining the security filter chain bean
 @Bean
@@ -40,25 +44,29 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Excepti
     http.csrf().disable() // Disabling CSRF protection
             .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Configuring CORS
             .authorizeHttpRequests(auth -> auth
+                    // Async results (e.g. payment calls) are dispatched again after the original request was already authorized
+                    .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                     // Permitting access to specific endpoints without authentication
-                    .requestMatchers("/api/register", "/api/login", "/api/foods/**", "/api/orders/all", "/api/orders/status/**").permitAll()
+                    .requestMatchers("/api/register", "/api/login", "/api/token/refresh", "/api/foods/**", "/api/orders/all", "/api/orders/status/**").permitAll()
+                    // Paystack webhooks carry no JWT; they are authenticated by their signature instead
+                    .requestMatchers("/api/payments/paystack/webhook").permitAll()
+                    // Blobs of the local blob store are public like S3 objects; uploads are authorized by their presigned URL
+                    .requestMatchers("/api/blobs/**").permitAll()
+                    // Only UP or DOWN without details, for load balancers, probes and the load-test scripts
+                    .requestMatchers("/actuator/health").permitAll()
                     // Requiring authentication for all other requests
                     .anyRequest().authenticated())
             // Setting session management to stateless for JWT-based authentication
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             // Adding the JWT authentication filter before the default username-password filter
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Throttling sign-in endpoints before any token parsing, user lookup or password hashing
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
 
     // Building and returning the security filter chain
     return http.build();
 }
 
-// Defining a password encoder bean using BCrypt with a strength of 12
-@Bean
-public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder(12); // Increased strength for better security
-}
-
 // Defining a CORS configuration source bean
 @Bean
 public CorsConfigurationSource corsConfigurationSource() {
@@ -68,7 +76,7 @@ public CorsConfigurationSource corsConfigurationSource() {
     // Allowing specific HTTP methods
     config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
     // Allowing specific headers in requests
-    config.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+    config.setAllowedHeaders(List.of("Authorization", "Content-Type", "Idempotency-Key"));
     // Allowing credentials in cross-origin requests
     config.setAllowCredentials(true);
 
@@ -86,7 +94,7 @@ public AuthenticationManager authenticationManager() {
     // Setting the custom user details service
     authProvider.setUserDetailsService(userDetailsService);
     // Setting the password encoder
-    authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setPasswordEncoder(passwordEncoder);
     // Returning an authentication manager with the configured provider
     return new ProviderManager(authProvider);
 }
@@ -0,0 +1,73 @@
+// The `TaskThreads` class hands out the threads for the application's own executors.
+// With `spring.threads.virtual.enabled=true` Spring Boot runs Tomcat requests on virtual threads, and the executors
+// built here switch to virtual threads too; pool sizes and queues stay as they are and keep acting as concurrency limits.
+// Libraries that block inside `synchronized` (JavaMail's SMTP transport, for example) would pin the carrier thread,
+// so those calls are handed to a small platform-thread pool via `runPinningProne`.
+package com.example.foodies_backend.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+@Component
+public class TaskThreads {
+
+private final boolean virtual;
+// Platform threads for blocking calls that are known to pin virtual threads; only created in virtual mode
+private final ExecutorService pinningProneExecutor;
+
+public TaskThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual,
+                   @Value("${foodies.threads.pinning-prone-pool-size:8}") int pinningPronePoolSize) {
+    this.virtual = virtual;
+    this.pinningProneExecutor = virtual
+            ? Executors.newFixedThreadPool(pinningPronePoolSize, platform("pinning-prone"))
+            : null;
+}
+
+@PreDestroy
+void shutdown() {
+    if (pinningProneExecutor != null) {
+        pinningProneExecutor.shutdown();
+    }
+}
+
+// Thread factory for an executor of ours: virtual threads in virtual mode, daemon platform threads otherwise
+public ThreadFactory factory(String name) {
+    return virtual ? Thread.ofVirtual().name(name + "-", 1).factory() : platform(name);
+}
+
+public boolean isVirtual() {
+    return virtual;
+}
+
+// Runs a call that blocks inside synchronized code; on a virtual thread it runs on a platform thread while the caller waits unpinned
+public <T> T runPinningProne(Supplier<T> call) {
+    if (!virtual || !Thread.currentThread().isVirtual()) {
+        return call.get();
+    }
+    Future<T> result = pinningProneExecutor.submit(call::get);
+    try {
+        return result.get();
+    } catch (InterruptedException ex) {
+        result.cancel(true);
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for a blocking call", ex);
+    } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw new IllegalStateException(ex.getCause());
+    }
+}
+
+private static ThreadFactory platform(String name) {
+    return Thread.ofPlatform().name(name + "-", 1).daemon(true).factory();
+}
+}
@@ -0,0 +1,27 @@
+package com.example.foodies_backend.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// A 429 answer that tells the client when to try again (Retry-After, in seconds)
+public class TooManyRequestsException extends ResponseStatusException {
+
+private final long retryAfterSeconds;
+
+public TooManyRequestsException(String reason, long retryAfterSeconds) {
+    super(HttpStatus.TOO_MANY_REQUESTS, reason);
+    this.retryAfterSeconds = retryAfterSeconds;
+}
+
+public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+}
+
+@Override
+public HttpHeaders getHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    return headers;
+}
+}
@@ -0,0 +1,106 @@
+package com.example.foodies_backend.config;
+
+// Importing necessary classes for caching verified JWT claims
+import io.jsonwebtoken.Claims;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A bounded LRU cache of recently verified tokens, so repeat requests with the same token skip HMAC verification and JSON parsing.
+// Entries are keyed by a SHA-256 hash of the token (raw tokens are never kept) and split over lock stripes to limit contention.
+final class VerifiedTokenCache {
+
+// Number of independently locked segments, a power of two
+private static final int STRIPES = 16;
+
+private final MessageDigest digestPrototype;
+private final Segment[] segments = new Segment[STRIPES];
+
+VerifiedTokenCache(int maxSize) {
+    int segmentSize = Math.max(1, maxSize / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+        segments[i] = new Segment(segmentSize);
+    }
+    try {
+        digestPrototype = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+}
+
+// Returns the cached claims of a token, or null when it is unknown or has expired since it was verified
+Claims get(String token) {
+    TokenHash key = hash(token);
+    Segment segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+        Entry entry = segment.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+            segment.entries.remove(key);
+            return null;
+        }
+        return entry.claims;
+    } finally {
+        segment.lock.unlock();
+    }
+}
+
+// Remembers the claims of a token that has just been verified
+void put(String token, Claims claims) {
+    if (claims.getExpiration() == null) {
+        return; // Only tokens with an expiry are cached, so an entry can never outlive its token
+    }
+    TokenHash key = hash(token);
+    Segment segment = segmentFor(key);
+    segment.lock.lock();
+    try {
+        segment.entries.put(key, new Entry(claims, claims.getExpiration().getTime()));
+    } finally {
+        segment.lock.unlock();
+    }
+}
+
+private Segment segmentFor(TokenHash key) {
+    return segments[(int) (key.h0 & (STRIPES - 1))];
+}
+
+private TokenHash hash(String token) {
+    MessageDigest digest;
+    try {
+        digest = (MessageDigest) digestPrototype.clone();
+    } catch (CloneNotSupportedException ex) {
+        throw new IllegalStateException(ex);
+    }
+    ByteBuffer bytes = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    return new TokenHash(bytes.getLong(), bytes.getLong(), bytes.getLong(), bytes.getLong());
+}
+
+private record TokenHash(long h0, long h1, long h2, long h3) {
+}
+
+private record Entry(Claims claims, long expiresAtMillis) {
+}
+
+// One lock stripe: an access-ordered map that drops its least recently used entry when full
+private static final class Segment {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<TokenHash, Entry> entries;
+
+    private Segment(int maxSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TokenHash, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+}
+}
@@ -4,14 +4,22 @@ package com.example.foodies_backend.controller;
 import com.example.foodies_backend.config.JwtUtil;
 import com.example.foodies_backend.dto.AuthenticationRequest;
 import com.example.foodies_backend.dto.AuthenticationResponse;
-import com.example.foodies_backend.service.AppUserDetailsService;
+import com.example.foodies_backend.dto.RefreshTokenRequest;
+import com.example.foodies_backend.service.AppUserDetails;
+import com.example.foodies_backend.service.RefreshTokenService;
+import com.example.foodies_backend.service.TokenDenylist;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 // Marking this class as a REST controller and mapping it to the "/api" endpoint
@@ -23,21 +31,44 @@ public class AuthController {
 
 // Injecting the authentication manager for user authentication
 private final AuthenticationManager authenticationManager;
-// Injecting the custom user details service to load user details
-private final AppUserDetailsService userDetailsService;
 // Injecting the JwtUtil class for generating JWT tokens
 private final JwtUtil jwtUtil;
+// Injecting the refresh token service that issues and rotates refresh tokens
+private final RefreshTokenService refreshTokenService;
+// Injecting the list of revoked access tokens
+private final TokenDenylist tokenDenylist;
 
 // Defining a POST endpoint for user login
 @PostMapping("/login")
 public AuthenticationResponse login(@RequestBody AuthenticationRequest request) {
-    // Authenticating the user using the provided email and password
-    authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-    // Loading user details using the email
-    final UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-    // Generating a JWT token for the authenticated user
+    // Authenticating the user using the provided email and password; the principal is the user loaded for the check
+    Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+    final AppUserDetails userDetails = (AppUserDetails) authentication.getPrincipal();
+    // Generating a short-lived JWT and the first refresh token of a new session
     final String jwtToken = jwtUtil.generateToken(userDetails);
-    // Returning the email and generated JWT token in the response
-    return new AuthenticationResponse(request.getEmail(), jwtToken);
+    final String refreshToken = refreshTokenService.issue(userDetails);
+    // Returning the email and generated tokens in the response
+    return new AuthenticationResponse(request.getEmail(), jwtToken, refreshToken);
+}
+
+// Defining a POST endpoint that swaps a refresh token for a new access token and a new refresh token
+@PostMapping("/token/refresh")
+public AuthenticationResponse refresh(@RequestBody RefreshTokenRequest request) {
+    RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+    final String jwtToken = jwtUtil.generateToken(rotation.user());
+    return new AuthenticationResponse(rotation.user().getUsername(), jwtToken, rotation.refreshToken());
+}
+
+// Defining a POST endpoint that ends the session: the presented access token stops working on every node,
+// and so does the refresh token's family when the client sends it along
+@PostMapping("/logout")
+@ResponseStatus(HttpStatus.NO_CONTENT)
+public void logout(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization, @RequestBody(required = false) RefreshTokenRequest request) {
+    // The request was authenticated with this header, so the token is valid and its claims are cached
+    Claims claims = jwtUtil.parseClaims(authorization.substring(7));
+    tokenDenylist.revoke(claims.getId(), claims.get(JwtUtil.USER_ID_CLAIM, String.class), claims.getExpiration().toInstant());
+    if (request != null) {
+        refreshTokenService.revoke(request.getRefreshToken());
+    }
+}
 }
-}
\ No newline at end of file
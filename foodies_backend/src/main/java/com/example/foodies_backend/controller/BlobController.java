@@ -0,0 +1,202 @@
+package com.example.foodies_backend.controller;
+
+import com.example.foodies_backend.service.BlobStore;
+import com.example.foodies_backend.service.LocalBlobStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Serves and accepts blobs of the local blob store, with Range requests and conditional GETs
+@RestController
+@RequestMapping("/api/blobs")
+@ConditionalOnProperty(name = "foodies.blobstore", havingValue = "local")
+@AllArgsConstructor
+public class BlobController {
+
+// Keys are never reused for different content, so any copy stays valid
+private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+// Tomcat's sendfile hooks: the connector sends the file itself with sendfile(2) after the request returns
+private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+private final LocalBlobStore blobStore;
+
+@RequestMapping(value = "/{key}", method = {RequestMethod.GET, RequestMethod.HEAD})
+public void serve(@PathVariable String key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    BlobStore.BlobInfo info = blobStore.stat(key);
+    if (info == null) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No blob " + key);
+    }
+    long size = info.size();
+    long lastModified = info.lastModified().getEpochSecond();
+    String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+
+    response.setHeader(HttpHeaders.ETAG, etag);
+    response.setHeader(HttpHeaders.LAST_MODIFIED, httpDate(lastModified));
+    response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    response.setContentType(info.contentType());
+
+    if (notModified(request, etag, lastModified)) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return;
+    }
+
+    // A single byte range; multi-range requests and stale If-Range validators get the whole file
+    long start = 0;
+    long end = size; // Exclusive
+    String range = request.getHeader(HttpHeaders.RANGE);
+    if (range != null && rangeStillValid(request.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+        long[] bounds = parseRange(range, size);
+        if (bounds == null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        if (bounds.length == 2) {
+            start = bounds[0];
+            end = bounds[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+        }
+    }
+    response.setContentLengthLong(end - start);
+    if ("HEAD".equals(request.getMethod()) || end == start) {
+        return;
+    }
+
+    Path file = blobStore.path(key);
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+        request.setAttribute(SENDFILE_FILENAME, file.toString());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end);
+        return;
+    }
+    // No sendfile (e.g. TLS, or another container): FileChannel.transferTo into the response, without a user-space copy loop
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        while (position < end) {
+            position += channel.transferTo(position, end - position, target);
+        }
+        out.flush();
+    }
+}
+
+// Target of a presigned upload URL; direct uploads go to the pending prefix until the food is confirmed
+@PutMapping("/pending/{key}")
+public void uploadPending(@PathVariable String key,
+                          @RequestParam long expires,
+                          @RequestParam String signature,
+                          HttpServletRequest request) throws IOException {
+    upload(BlobStore.PENDING_PREFIX + key, expires, signature, request);
+}
+
+@PutMapping("/{key}")
+public void upload(@PathVariable String key,
+                   @RequestParam long expires,
+                   @RequestParam String signature,
+                   HttpServletRequest request) throws IOException {
+    String contentType = request.getContentType() == null ? "" : request.getContentType().toLowerCase();
+    long length = request.getContentLengthLong(); // -1 for chunked bodies, which can't match a signed length
+    if (!blobStore.verifyUpload(key, contentType, length, expires, signature)) {
+        throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Invalid or expired upload URL");
+    }
+    blobStore.put(key, contentType, length, null, request.getInputStream());
+}
+
+// If-None-Match wins over If-Modified-Since when both are sent
+private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch != null) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    Long since = parseHttpDate(request.getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+    return since != null && lastModified <= since;
+}
+
+private static boolean rangeStillValid(String ifRange, String etag, long lastModified) {
+    if (ifRange == null) {
+        return true;
+    }
+    if (ifRange.startsWith("\"")) {
+        return ifRange.equals(etag);
+    }
+    Long date = parseHttpDate(ifRange);
+    return date != null && date == lastModified;
+}
+
+// Returns {start, endExclusive}, an empty array to ignore the header, or null when the range can't be satisfied
+static long[] parseRange(String header, long size) {
+    if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+        return new long[0];
+    }
+    String spec = header.substring(6).trim();
+    int dash = spec.indexOf('-');
+    if (dash < 0) {
+        return new long[0];
+    }
+    try {
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        if (first.isEmpty()) {
+            // Suffix range: the last n bytes
+            long suffix = Long.parseLong(last);
+            if (suffix <= 0 || size == 0) {
+                return null;
+            }
+            return new long[]{Math.max(0, size - suffix), size};
+        }
+        long start = Long.parseLong(first);
+        long end = last.isEmpty() ? size : Math.min(size, Long.parseLong(last) + 1);
+        if (start >= size || end <= start) {
+            return start >= size ? null : new long[0];
+        }
+        return new long[]{start, end};
+    } catch (NumberFormatException ex) {
+        return new long[0];
+    }
+}
+
+private static String httpDate(long epochSecond) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC));
+}
+
+private static Long parseHttpDate(String value) {
+    if (value == null) {
+        return null;
+    }
+    try {
+        return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+    } catch (DateTimeParseException ex) {
+        return null;
+    }
+}
+}
@@ -1,8 +1,10 @@
 package com.example.foodies_backend.controller;
 
 // Importing necessary classes for handling HTTP requests and responses
+import com.example.foodies_backend.dto.CartDetailsResponse;
 import com.example.foodies_backend.dto.CartRequest;
 import com.example.foodies_backend.dto.CartResponse;
+import com.example.foodies_backend.dto.CartSyncRequest;
 import com.example.foodies_backend.service.CartService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -39,6 +41,13 @@ public CartResponse getCart() {
     return cartService.getCart();
 }
 
+// Defining a GET endpoint to retrieve the current cart with food details and totals in one response
+@GetMapping("/details")
+public CartDetailsResponse getCartDetails() {
+    // Delegating the hydrated cart view to the CartService
+    return cartService.getCartDetails();
+}
+
 // Defining a DELETE endpoint to clear the cart
 @DeleteMapping
 @ResponseStatus(HttpStatus.NO_CONTENT) // Setting the response status to NO_CONTENT
@@ -59,4 +68,11 @@ public CartResponse removeFromCart(@RequestBody CartRequest request) {
     // Delegating the remove-from-cart operation to the CartService
     return cartService.removeFromCart(request);
 }
+
+// Defining a POST endpoint to apply many cart changes (deltas or absolute quantities) in one request
+@PostMapping("/sync")
+public CartResponse syncCart(@RequestBody CartSyncRequest request) {
+    // Delegating the batched update to the CartService
+    return cartService.syncCart(request);
+}
 }
\ No newline at end of file
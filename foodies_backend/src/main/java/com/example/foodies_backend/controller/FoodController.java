@@ -1,15 +1,27 @@
 package com.example.foodies_backend.controller;
 
 // Importing necessary classes for handling HTTP requests and responses
+import com.example.foodies_backend.dto.FoodConfirmRequest;
+import com.example.foodies_backend.dto.FoodImageUploadRequest;
+import com.example.foodies_backend.dto.FoodImageUploadResponse;
+import com.example.foodies_backend.dto.FoodPageRequest;
+import com.example.foodies_backend.dto.FoodPageResponse;
 import com.example.foodies_backend.dto.FoodRequest;
 import com.example.foodies_backend.dto.FoodResponse;
+import com.example.foodies_backend.dto.FoodSearchResponse;
+import com.example.foodies_backend.service.FoodCatalog;
 import com.example.foodies_backend.service.FoodService;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -27,12 +39,13 @@ public class FoodController {
 // Injecting the FoodService to handle food-related operations
 private final FoodService foodService;
 
+// Injecting the shared, application-wide ObjectMapper instead of creating one per request
+private final ObjectMapper objectMapper;
+
 // Defining a POST endpoint to add a new food item
 @PostMapping
 public FoodResponse addFood(@RequestPart("food") String foodString,
                             @RequestPart("file") MultipartFile file) {
-    // Creating an ObjectMapper instance to parse JSON
-    ObjectMapper objectMapper = new ObjectMapper();
     FoodRequest request = null;
     try {
         // Parsing the JSON string into a FoodRequest object
@@ -46,11 +59,84 @@ public FoodResponse addFood(@RequestPart("food") String foodString,
     return response;
 }
 
+// Defining a POST endpoint that issues a presigned URL for uploading a food image straight to the bucket
+@PostMapping("/uploads")
+public FoodImageUploadResponse presignImageUpload(@RequestBody FoodImageUploadRequest request) {
+    // Delegating the URL signing to the FoodService
+    return foodService.presignImageUpload(request);
+}
+
+// Defining a POST endpoint that creates a food once its image has been uploaded with a presigned URL
+@PostMapping("/confirm")
+@ResponseStatus(HttpStatus.CREATED)
+public FoodResponse confirmFood(@RequestBody FoodConfirmRequest request) {
+    // Delegating the upload check and food creation to the FoodService
+    return foodService.confirmFood(request);
+}
+
 // Defining a GET endpoint to retrieve all food items
 @GetMapping
-public List<FoodResponse> readFoods() {
-    // Delegating the read-foods operation to the FoodService
-    return foodService.readFoods();
+public ResponseEntity<byte[]> readFoods(WebRequest webRequest,
+                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    // Reading the current in-memory catalog snapshot from the FoodService
+    FoodCatalog catalog = foodService.readCatalog();
+    // Picking the pre-compressed payload when the client accepts gzip
+    boolean gzip = acceptsGzip(acceptEncoding);
+    String etag = gzip ? catalog.getGzipEtag() : catalog.getEtag();
+    // Answering with 304 Not Modified when the client already holds this snapshot (If-None-Match)
+    if (webRequest.checkNotModified(etag)) {
+        return null;
+    }
+    // Writing the pre-serialized bytes as-is, with a strong ETag and a request to revalidate before reuse
+    byte[] body = gzip ? catalog.getGzipJson() : catalog.getJson();
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .contentLength(body.length)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    return response.body(body);
+}
+
+// Defining a GET endpoint to retrieve one page of food items, filtered and sorted, with cursor pagination
+@GetMapping("/page")
+public FoodPageResponse readFoodPage(@RequestParam(required = false) String category,
+                                     @RequestParam(required = false) Double minPrice,
+                                     @RequestParam(required = false) Double maxPrice,
+                                     @RequestParam(defaultValue = "name") String sort,
+                                     @RequestParam(defaultValue = "asc") String direction,
+                                     @RequestParam(defaultValue = "20") int limit,
+                                     @RequestParam(required = false) String cursor) {
+    // Delegating the paginated read to the FoodService
+    return foodService.readFoodPage(FoodPageRequest.builder()
+            .category(category)
+            .minPrice(minPrice)
+            .maxPrice(maxPrice)
+            .sort(sort)
+            .direction(direction)
+            .limit(limit)
+            .cursor(cursor)
+            .build());
+}
+
+// Defining a GET endpoint to search food items, with category and price-band facet counts
+@GetMapping("/search")
+public FoodSearchResponse searchFoods(@RequestParam(defaultValue = "") String q,
+                                      @RequestParam(required = false) String category,
+                                      @RequestParam(defaultValue = "20") int limit) {
+    // Delegating the search to the FoodService
+    return foodService.searchFoods(q, category, limit);
+}
+
+// Defining a GET endpoint to suggest search terms while the user types
+@GetMapping("/suggest")
+public List<String> suggestFoods(@RequestParam String prefix,
+                                 @RequestParam(defaultValue = "10") int limit) {
+    // Delegating the autocomplete lookup to the FoodService
+    return foodService.suggestFoods(prefix, limit);
 }
 
 // Defining a GET endpoint to retrieve a specific food item by ID
@@ -67,4 +153,76 @@ public void deleteFood(@PathVariable String id) {
     // Delegating the delete-food operation to the FoodService
     foodService.deleteFood(id);
 }
-}
\ No newline at end of file
+
+// Checks whether the Accept-Encoding header allows gzip (and does not disable it with q=0); an explicit gzip entry
+// wins over "*". Scans the header in place, without splitting or regexes, since every GET /api/foods runs it
+static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+        return false;
+    }
+    boolean wildcard = false;
+    int length = acceptEncoding.length();
+    int start = 0;
+    while (start < length) {
+        int end = acceptEncoding.indexOf(',', start);
+        if (end < 0) {
+            end = length;
+        }
+        int params = acceptEncoding.indexOf(';', start);
+        if (params < 0 || params > end) {
+            params = end;
+        }
+        int nameStart = skipSpaces(acceptEncoding, start, params);
+        int nameLength = trimEnd(acceptEncoding, nameStart, params) - nameStart;
+        if (nameLength == 4 && acceptEncoding.regionMatches(true, nameStart, "gzip", 0, 4)) {
+            return !zeroQuality(acceptEncoding, params, end);
+        }
+        if (nameLength == 1 && acceptEncoding.charAt(nameStart) == '*') {
+            wildcard = !zeroQuality(acceptEncoding, params, end);
+        }
+        start = end + 1;
+    }
+    return wildcard;
+}
+
+// Whether the parameters of one coding, from its first ';' up to `end`, set q to zero ("0" up to "0.000")
+private static boolean zeroQuality(String header, int params, int end) {
+    while (params < end) {
+        int next = header.indexOf(';', params + 1);
+        if (next < 0 || next > end) {
+            next = end;
+        }
+        int from = skipSpaces(header, params + 1, next);
+        int to = trimEnd(header, from, next);
+        if (to - from >= 3 && (header.charAt(from) == 'q' || header.charAt(from) == 'Q') && header.charAt(from + 1) == '=') {
+            int at = from + 2;
+            if (header.charAt(at++) != '0') {
+                return false;
+            }
+            if (at < to && header.charAt(at) == '.') {
+                at++;
+                while (at < to && at <= from + 6 && header.charAt(at) == '0') {
+                    at++;
+                }
+            }
+            return at == to;
+        }
+        params = next;
+    }
+    return false;
+}
+
+private static int skipSpaces(String text, int from, int to) {
+    while (from < to && (text.charAt(from) == ' ' || text.charAt(from) == '\t')) {
+        from++;
+    }
+    return from;
+}
+
+private static int trimEnd(String text, int from, int to) {
+    while (to > from && (text.charAt(to - 1) == ' ' || text.charAt(to - 1) == '\t')) {
+        to--;
+    }
+    return to;
+}
+}
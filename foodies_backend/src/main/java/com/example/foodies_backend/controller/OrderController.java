@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -17,18 +18,19 @@ public class OrderController {
 
 private final OrderService orderService;
 
-// Create order and initialize Paystack payment
+// Create order and initialize Paystack payment; the request thread is released while Paystack is called
 @PostMapping("/create")
 @ResponseStatus(HttpStatus.CREATED)
-public OrderResponse createOrderWithPayment(@RequestBody OrderRequest request) {
-    return orderService.createOrderWithPayment(request);
+public CompletableFuture<OrderResponse> createOrderWithPayment(@RequestBody OrderRequest request,
+                                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return orderService.createOrderWithPayment(request, idempotencyKey);
 }
 
-// Verify payment after Paystack redirect or from frontend callback
+// Read the payment state after Paystack redirect or from frontend callback; the webhook does the confirming
 @PostMapping("/verify")
-public void verifyPayment(@RequestBody Map<String, String> paymentData) {
+public OrderResponse verifyPayment(@RequestBody Map<String, String> paymentData) {
     // Here we use "Paid" as the status label you want to mark orders with
-    orderService.verifyPayment(paymentData, "Paid");
+    return orderService.verifyPayment(paymentData, "Paid");
 }
 
 @GetMapping
@@ -0,0 +1,26 @@
+package com.example.foodies_backend.controller;
+
+import com.example.foodies_backend.service.PaymentEventProcessor;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+// Receives payment events pushed by Paystack
+@RestController
+@RequestMapping("/api/payments/paystack")
+@AllArgsConstructor
+public class PaymentWebhookController {
+
+private final PaymentEventProcessor paymentEventProcessor;
+
+// Paystack webhook: checks the signature over the raw body, records the event and answers right away
+@PostMapping("/webhook")
+public void receiveEvent(@RequestBody byte[] body,
+                         @RequestHeader(value = "x-paystack-signature", required = false) String signature) {
+    if (!paymentEventProcessor.verifySignature(body, signature)) {
+        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid signature");
+    }
+    paymentEventProcessor.receive(body);
+}
+}
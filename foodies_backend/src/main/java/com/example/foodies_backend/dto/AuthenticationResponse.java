@@ -8,4 +8,5 @@ import lombok.Getter;
 public class AuthenticationResponse {
 private String email;
 private String token;
+private String refreshToken;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.example.foodies_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CartDetailsResponse {
+
+    private String id;
+    private String userId;
+    @Builder.Default
+    private List<CartLineResponse> lines = new ArrayList<>();
+    // Foods still in the cart that no longer exist in the menu
+    @Builder.Default
+    private List<String> unavailableFoodIds = new ArrayList<>();
+    private int totalQuantity;
+    private double subtotal;
+}
@@ -0,0 +1,20 @@
+package com.example.foodies_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CartLineResponse {
+    private String foodId;
+    private String name;
+    private String imageUrl;
+    private String category;
+    private double price;
+    private int quantity;
+    private double lineTotal;
+}
@@ -0,0 +1,16 @@
+package com.example.foodies_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CartSyncItem {
+    private String foodId;
+    private Integer delta; // Change to the current quantity, e.g. +2 or -1
+    private Integer quantity; // Absolute quantity to set; 0 removes the item
+}
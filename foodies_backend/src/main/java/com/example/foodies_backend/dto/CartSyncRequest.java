@@ -0,0 +1,19 @@
+package com.example.foodies_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CartSyncRequest {
+    // Changes applied in order; each item carries either a delta or an absolute quantity
+    @Builder.Default
+    private List<CartSyncItem> items = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package com.example.foodies_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FoodConfirmRequest {
+    // Key returned by the upload endpoint
+    private String imageKey;
+    private FoodRequest food;
+}
@@ -0,0 +1,24 @@
+package com.example.foodies_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FoodImageUploadResponse {
+    // The object key to send back when confirming the upload
+    private String key;
+    // Presigned URL the client PUTs the image to
+    private String uploadUrl;
+    // Headers the client has to send with the PUT, since they are part of the signature
+    private Map<String, List<String>> headers;
+    private Instant expiresAt;
+}
@@ -0,0 +1,22 @@
+package com.example.foodies_backend.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FoodPageRequest {
+
+    private String category;
+    private Double minPrice;
+    private Double maxPrice;
+    private String sort;
+    private String direction;
+    private int limit;
+    private String cursor;
+}
@@ -0,0 +1,19 @@
+package com.example.foodies_backend.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FoodPageResponse {
+
+    private List<FoodResponse> items;
+    private String nextCursor; // Opaque cursor for the next page, null on the last page
+}
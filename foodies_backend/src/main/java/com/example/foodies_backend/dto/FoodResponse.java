@@ -6,15 +6,18 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class FoodResponse {
     private String id;
     private String name;
     private String description;
     private String imageUrl;
+    private Map<String, String> imageVariants;
     private double price;
     private String category;
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.example.foodies_backend.dto;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FoodSearchResponse {
+
+    private List<FoodResponse> items; // Best matches first
+    private int total; // Number of matching foods after the category filter
+    private Map<String, Integer> categories; // Matching foods per category, ignoring the category filter
+    private Map<String, Integer> priceBands; // Matching foods per price band
+}
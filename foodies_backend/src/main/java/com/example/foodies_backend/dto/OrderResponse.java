@@ -1,12 +1,16 @@
 package com.example.foodies_backend.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
 @Builder
+@NoArgsConstructor // Needed to read stored responses back (idempotent replays)
+@AllArgsConstructor
 public class OrderResponse {
 private String id;
 private String userId;
@@ -8,6 +8,7 @@ import lombok.Builder; // Enables the builder pattern for creating instances of
 import lombok.Data; // Generates getters, setters, equals, hashCode, and toString methods.
 import lombok.NoArgsConstructor; // Generates a no-argument constructor.
 import org.springframework.data.annotation.Id; // Marks the field as the primary key for the MongoDB document.
+import org.springframework.data.mongodb.core.index.Indexed; // Declares an index on a field.
 import org.springframework.data.mongodb.core.mapping.Document; // Maps the class to a MongoDB collection.
 
 import java.util.HashMap; // Provides a default implementation for the `items` map.
@@ -21,6 +22,7 @@ import java.util.Map; // Represents the cart items as a map of food IDs to quant
 public class CartEntity {
 @Id // Marks the `id` field as the unique identifier for the document.
 private String id; // The unique identifier for the cart.
+@Indexed(unique = true) // One cart per user; also what makes concurrent upserts safe.
 private String userId; // The ID of the user who owns the cart.
 private Map<String, Integer> items = new HashMap<>(); // A map of food item IDs to their quantities.
 
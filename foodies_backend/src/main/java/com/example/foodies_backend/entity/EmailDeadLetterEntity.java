@@ -0,0 +1,32 @@
+// The `EmailDeadLetterEntity` class is an email the dispatcher gave up on after its last attempt.
+// It keeps the message and the final error so it can be inspected and, if needed, re-queued by hand. Bodies can hold
+// password reset links, so dead letters are removed by MongoDB a week after the last attempt.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "email_dead_letters")
+public class EmailDeadLetterEntity {
+    @Id
+    private String id; // Same id it had in the outbox
+    private String recipient;
+    private String subject;
+    private String body;
+    private int attempts;
+    private String lastError;
+    private Instant createdAt;
+    @Indexed(expireAfter = "7d") // Long enough to look into a mail outage, short enough not to keep live links around
+    private Instant failedAt;
+}
@@ -0,0 +1,39 @@
+// The `EmailOutboxEntity` class is one email waiting in the outbox.
+// Requests only insert these; the dispatcher sends them in the background and deletes them once the mail server took them.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "email_outbox")
+// Backs the dispatcher's "due emails, oldest first" query
+@CompoundIndex(name = "status_nextAttemptAt", def = "{'status': 1, 'nextAttemptAt': 1}")
+public class EmailOutboxEntity {
+
+public static final String PENDING = "pending";
+public static final String SENDING = "sending";
+
+@Id
+private String id;
+private String recipient;
+private String subject;
+private String body;
+private String status; // pending, or sending while a dispatcher holds it
+private int attempts; // Failed sends so far
+private String lastError;
+private String claimToken; // Marks the batch of the dispatcher holding it
+private Instant createdAt;
+private Instant nextAttemptAt; // Not sent before this time (backoff after a failure)
+private Instant claimedAt;
+}
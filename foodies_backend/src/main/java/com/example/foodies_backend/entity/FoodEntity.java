@@ -5,13 +5,24 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Map;
+
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Document(collection = "foods")
+// Indexes backing the paginated listing: (filter, sort key, _id) so every page is a bounded index range scan
+@CompoundIndexes({
+        @CompoundIndex(name = "category_price_id", def = "{'category': 1, 'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "category_name_id", def = "{'category': 1, 'name': 1, '_id': 1}"),
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
+})
 public class FoodEntity {
     @Id
     private String id;
@@ -20,5 +31,6 @@ public class FoodEntity {
     private double price;
     private String category;
     private String imageUrl;
+    private Map<String, String> imageVariants;
 }
 
@@ -0,0 +1,32 @@
+// The `IdempotencyKeyEntity` class remembers a request made with an Idempotency-Key header and, once done, its response.
+// Entries expire through a TTL index on `createdAt`.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "idempotency_keys")
+public class IdempotencyKeyEntity {
+
+public static final String IN_PROGRESS = "in_progress";
+public static final String COMPLETED = "completed";
+
+@Id
+private String id; // Scope (e.g. the user) and the client's key
+private String requestHash; // SHA-256 of the request body, to catch a key reused for a different request
+private String status; // in_progress or completed
+private String response; // The response as JSON, once completed
+@Indexed(expireAfter = "24h") // Keys are kept for a day, then removed by MongoDB
+private Instant createdAt;
+}
@@ -4,16 +4,27 @@ import com.example.foodies_backend.dto.OrderItem;
 import lombok.Builder;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.time.Instant;
 import java.util.List;
 
 @Document(collection = "orders")
+@CompoundIndexes({
+        // Serves the reconciliation job's scan over unpaid orders by age
+        @CompoundIndex(name = "paymentStatus_createdAt", def = "{'paymentStatus': 1, 'createdAt': 1}"),
+        // Serves listings of orders in one status, newest first (e.g. everything still "preparing")
+        @CompoundIndex(name = "orderStatus_createdAt", def = "{'orderStatus': 1, 'createdAt': -1}")
+})
 @Data
 @Builder
 public class OrderEntity {
 @Id
 private String id;
+@Indexed // A user's order history
 private String userId;
 private String userAddress;
 private String phoneNumber;
@@ -21,6 +32,8 @@ private String email;
 private List<OrderItem> orderedItems;
 private double amount;
 private String paymentStatus;
+@Indexed(unique = true, sparse = true) // Webhook and verify lookups; set once Paystack has answered, so sparse
 private String paymentReference; // New field for Paystack transaction reference
 private String orderStatus;
+private Instant createdAt; // When the order was placed; missing on orders created before this field existed
 }
@@ -0,0 +1,40 @@
+// The `PaymentEventEntity` class is one entry of the payment event ledger.
+// Its id is the Paystack payment reference, so each payment is recorded once however often the webhook is delivered.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "payment_events")
+public class PaymentEventEntity {
+
+public static final String RECEIVED = "received";
+public static final String PROCESSING = "processing";
+public static final String PROCESSED = "processed";
+public static final String FAILED = "failed";
+
+@Id
+private String reference; // The Paystack payment reference
+private String event; // The Paystack event type, e.g. "charge.success"
+private String transactionStatus; // The transaction status reported in the event
+private long amountInKobo; // The amount reported in the event
+private String payload; // The raw event body as received
+@Indexed
+private String status; // Where the event is in processing (received, processing, processed, failed)
+private int attempts;
+private String lastError;
+private Instant receivedAt;
+private Instant claimedAt;
+private Instant processedAt;
+}
@@ -0,0 +1,29 @@
+// The `PendingUploadEntity` class is an image key handed out for a direct upload that has not been confirmed yet.
+// Confirming a food removes it, so each issued key creates at most one food; MongoDB deletes the ones never confirmed.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "pending_uploads")
+public class PendingUploadEntity {
+
+@Id
+private String key; // The image key given to the client, without the pending prefix
+private String contentType;
+private long contentLength;
+private Instant createdAt;
+@Indexed(expireAfter = "0s")
+private Instant expiresAt; // Last moment the upload can be confirmed
+}
@@ -0,0 +1,27 @@
+// The `RateLimitEntity` class is one shared token bucket of the Mongo-backed rate limiter.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "rate_limits")
+public class RateLimitEntity {
+
+@Id
+private String key; // Rule name plus IP or email
+private double tokens;
+private boolean allowed; // Outcome of the last check, set by the same update that took the token
+@Indexed(expireAfter = "1h") // An idle bucket is full again long before this, so dropping it changes nothing
+private Date updatedAt;
+}
@@ -0,0 +1,36 @@
+// The `RefreshTokenEntity` class is one refresh token of a login session ("family").
+// Only the SHA-256 of the token is stored. Each refresh replaces the token with a new one of the same family;
+// presenting a token that was already replaced means it leaked, and the whole family is revoked.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "refresh_tokens")
+public class RefreshTokenEntity {
+
+@Id
+private String tokenHash; // Hex SHA-256 of the token handed to the client
+@Indexed
+private String familyId; // Shared by all tokens descending from one login
+@Indexed
+private String userId;
+private String email;
+private String replacedBy; // Hash of the token that replaced this one, null while it is the current one
+private Instant replacedAt;
+private boolean revoked;
+private Instant createdAt;
+@Indexed(expireAfter = "0s")
+private Instant expiresAt; // MongoDB deletes the token at this time
+}
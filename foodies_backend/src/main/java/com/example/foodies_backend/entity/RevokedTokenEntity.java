@@ -0,0 +1,29 @@
+// The `RevokedTokenEntity` class is one access token that was revoked before it expired, e.g. by a logout.
+// It only has to outlive the token itself, so MongoDB deletes it at the token's own expiry.
+package com.example.foodies_backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Document(collection = "revoked_tokens")
+public class RevokedTokenEntity {
+
+@Id
+private String jti; // The token's "jti" claim
+private String userId;
+@Indexed
+private Instant revokedAt; // Nodes poll for entries newer than the last one they saw
+@Indexed(expireAfter = "0s")
+private Instant expiresAt; // The token's own expiry; after it the token is rejected anyway
+}
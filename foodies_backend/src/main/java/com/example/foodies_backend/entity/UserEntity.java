@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -20,9 +21,11 @@ public class UserEntity {
 private String id;
 
 private String name;
+@Indexed(unique = true) // Looked up on every login and registration; also rejects a second account for the same email
 private String email;
 private String password;
 
+@Indexed(sparse = true) // Only users in the middle of a password reset have one
 private String resetToken;
 private LocalDateTime resetTokenExpiry;
 }
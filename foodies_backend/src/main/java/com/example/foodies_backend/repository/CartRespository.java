@@ -8,7 +8,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface CartRespository extends MongoRepository<CartEntity, String> {
+public interface CartRespository extends MongoRepository<CartEntity, String>, CartRespositoryCustom {
 
     Optional<CartEntity> findByUserId(String userId);
 
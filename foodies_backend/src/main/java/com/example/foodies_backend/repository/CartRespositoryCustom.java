@@ -0,0 +1,17 @@
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.entity.CartEntity;
+
+import java.util.Map;
+
+public interface CartRespositoryCustom {
+
+// Applies quantity deltas and absolute quantities to a user's cart in one atomic update, dropping items that reach zero.
+// Creates the cart when `upsert` is true; otherwise returns null when the user has no cart.
+CartEntity applyChanges(String userId, Map<String, Integer> deltas, Map<String, Integer> quantities, boolean upsert);
+
+// Adds the given quantity deltas to a user's cart in one atomic update, dropping items that reach zero.
+default CartEntity applyDeltas(String userId, Map<String, Integer> deltas, boolean upsert) {
+    return applyChanges(userId, deltas, Map.of(), upsert);
+}
+}
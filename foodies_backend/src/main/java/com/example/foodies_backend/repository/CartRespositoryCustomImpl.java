@@ -0,0 +1,74 @@
+// The `CartRespositoryCustomImpl` class applies cart changes as single server-side updates instead of read-modify-write.
+// Each call is one findAndModify with an aggregation pipeline, so concurrent clicks from several devices never lose an update.
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.entity.CartEntity;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@AllArgsConstructor
+public class CartRespositoryCustomImpl implements CartRespositoryCustom {
+
+// Food ids become field names inside `items`, so only plain id characters are accepted (no '.', no '$');
+// CartServiceImpl checks request ids against the same pattern
+public static final Pattern FOOD_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+private final MongoTemplate mongoTemplate;
+
+@Override
+public CartEntity applyChanges(String userId, Map<String, Integer> deltas, Map<String, Integer> quantities, boolean upsert) {
+    List<Object> merged = new ArrayList<>();
+    merged.add(new Document("$ifNull", List.of("$items", new Document())));
+    Document changes = new Document();
+    for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+        // items.<foodId> = (items.<foodId> or 0) + delta
+        changes.append(checkFoodId(delta.getKey()), new Document("$add", List.of(
+                new Document("$ifNull", List.of("$items." + delta.getKey(), 0)),
+                delta.getValue())));
+    }
+    for (Map.Entry<String, Integer> quantity : quantities.entrySet()) {
+        // items.<foodId> = quantity; $literal keeps the value from being read as an expression
+        changes.append(checkFoodId(quantity.getKey()), new Document("$literal", quantity.getValue()));
+    }
+    merged.add(changes);
+    return update(userId, merged, upsert);
+}
+
+private static String checkFoodId(String foodId) {
+    if (foodId == null || !FOOD_ID.matcher(foodId).matches()) {
+        throw new IllegalArgumentException("Invalid food id: " + foodId);
+    }
+    return foodId;
+}
+
+// Runs the merge plus "drop items at or below zero" as one pipeline update and returns the new cart
+private CartEntity update(String userId, List<Object> merged, boolean upsert) {
+    Document items = new Document("$arrayToObject", new Document("$filter", new Document()
+            .append("input", new Document("$objectToArray", new Document("$mergeObjects", merged)))
+            .append("cond", new Document("$gt", List.of("$$this.v", 0)))));
+    AggregationOperation setItems = context -> new Document("$set", new Document("items", items));
+
+    Query query = new Query(where("userId").is(userId));
+    AggregationUpdate update = AggregationUpdate.from(List.of(setItems));
+    FindAndModifyOptions options = FindAndModifyOptions.options().upsert(upsert).returnNew(true);
+    try {
+        return mongoTemplate.findAndModify(query, update, options, CartEntity.class);
+    } catch (DuplicateKeyException ex) {
+        // Two first-ever updates raced to create the cart; the unique userId index let one win, so apply ours to it
+        return mongoTemplate.findAndModify(query, update, options, CartEntity.class);
+    }
+}
+}
@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface FoodRepository extends MongoRepository<FoodEntity, String> {
+public interface FoodRepository extends MongoRepository<FoodEntity, String>, FoodRepositoryCustom {
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.entity.FoodEntity;
+
+import java.util.List;
+
+public interface FoodRepositoryCustom {
+
+// Reads one page of foods sorted by (sortField, _id), starting strictly after the given keyset position
+List<FoodEntity> findPage(String category, Double minPrice, Double maxPrice,
+                          String sortField, boolean ascending,
+                          Object afterValue, String afterId, int limit);
+}
@@ -0,0 +1,68 @@
+// The `FoodRepositoryCustomImpl` class implements keyset (cursor) pagination over the foods collection.
+// Each page is a range scan on one of the compound indexes declared on `FoodEntity`, so cost stays flat as the catalog grows.
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.entity.FoodEntity;
+import lombok.AllArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@AllArgsConstructor
+public class FoodRepositoryCustomImpl implements FoodRepositoryCustom {
+
+private final MongoTemplate mongoTemplate;
+
+@Override
+public List<FoodEntity> findPage(String category, Double minPrice, Double maxPrice,
+                                 String sortField, boolean ascending,
+                                 Object afterValue, String afterId, int limit) {
+    List<Criteria> filters = new ArrayList<>();
+
+    // Equality filter first, so it matches the leading field of the compound indexes
+    if (category != null) {
+        filters.add(where("category").is(category));
+    }
+
+    // Price range filter
+    if (minPrice != null || maxPrice != null) {
+        Criteria price = where("price");
+        if (minPrice != null) {
+            price = price.gte(minPrice);
+        }
+        if (maxPrice != null) {
+            price = price.lte(maxPrice);
+        }
+        filters.add(price);
+    }
+
+    // Keyset condition: (sortField, _id) strictly after the last item of the previous page
+    if (afterValue != null && afterId != null) {
+        Object lastId = ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId;
+        Criteria pastValue = ascending ? where(sortField).gt(afterValue) : where(sortField).lt(afterValue);
+        Criteria pastId = ascending ? where("_id").gt(lastId) : where("_id").lt(lastId);
+        filters.add(new Criteria().orOperator(
+                pastValue,
+                new Criteria().andOperator(where(sortField).is(afterValue), pastId)));
+    }
+
+    Query query = new Query();
+    if (!filters.isEmpty()) {
+        query.addCriteria(new Criteria().andOperator(filters));
+    }
+    Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+    query.with(Sort.by(direction, sortField).and(Sort.by(direction, "_id")));
+    query.limit(limit);
+    // List views do not show the description, so it is left out of the projection
+    query.fields().exclude("description");
+
+    return mongoTemplate.find(query, FoodEntity.class);
+}
+}
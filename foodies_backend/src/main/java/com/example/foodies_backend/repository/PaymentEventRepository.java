@@ -0,0 +1,9 @@
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.entity.PaymentEventEntity;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PaymentEventRepository extends MongoRepository<PaymentEventEntity, String> {
+}
@@ -0,0 +1,22 @@
+// The `AppUserDetails` class is the authenticated principal: Spring Security's `User` plus the database id of the user.
+// It is built from the verified JWT claims on every request, so identity never needs a database read.
+
+package com.example.foodies_backend.service;
+
+import lombok.Getter; // Generates the getter for the user id.
+import org.springframework.security.core.GrantedAuthority; // Represents an authority granted to the user.
+import org.springframework.security.core.userdetails.User; // Represents a Spring Security user.
+
+import java.util.Collection; // Holds the user's authorities.
+
+@Getter
+public class AppUserDetails extends User {
+
+// The id of the user document in the database.
+private final String id;
+
+public AppUserDetails(String id, String email, String password, Collection<? extends GrantedAuthority> authorities) {
+    super(email, password, authorities);
+    this.id = id;
+}
+}
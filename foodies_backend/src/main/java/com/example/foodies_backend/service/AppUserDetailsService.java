@@ -6,7 +6,6 @@ package com.example.foodies_backend.service;
 import com.example.foodies_backend.entity.UserEntity; // Represents the user entity in the database.
 import com.example.foodies_backend.repository.UserRepository; // Repository for accessing user data.
 import lombok.AllArgsConstructor; // Generates a constructor with all required fields.
-import org.springframework.security.core.userdetails.User; // Represents a Spring Security user.
 import org.springframework.security.core.userdetails.UserDetails; // Interface for user details used by Spring Security.
 import org.springframework.security.core.userdetails.UserDetailsService; // Interface for loading user-specific data.
 import org.springframework.security.core.userdetails.UsernameNotFoundException; // Exception thrown when a user is not found.
@@ -28,7 +27,7 @@ public UserDetails loadUserByUsername(String email) throws UsernameNotFoundExcep
     UserEntity user = userRepository.findByEmail(email)
             // Throwing an exception if the user is not found.
             .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-    // Returning a Spring Security `User` object with the user's email, password, and no authorities.
-    return new User(user.getEmail(), user.getPassword(), Collections.emptyList());
+    // Returning the principal with the user's id, email, password, and no authorities.
+    return new AppUserDetails(user.getId(), user.getEmail(), user.getPassword(), Collections.emptyList());
 }
 }
\ No newline at end of file
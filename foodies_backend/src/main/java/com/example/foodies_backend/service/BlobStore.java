@@ -0,0 +1,43 @@
+package com.example.foodies_backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Storage for uploaded images. `foodies.blobstore` picks the implementation:
+// "s3" (default) keeps them in the S3 bucket, "local" keeps them on disk and serves them from /api/blobs.
+public interface BlobStore {
+
+// Direct uploads land under this prefix and are moved out of it when the food is confirmed; on S3 a lifecycle rule
+// on the prefix removes uploads that were never confirmed
+String PENDING_PREFIX = "pending/";
+
+// Streams `size` bytes from `in` under key; `size` must be the exact length of the stream. cacheControl may be null
+void put(String key, String contentType, long size, String cacheControl, InputStream in) throws IOException;
+
+InputStream open(String key) throws IOException;
+
+// Size and type of a stored blob, or null when there is none
+BlobInfo stat(String key);
+
+void delete(String key);
+
+// Moves a blob to another key, replacing whatever was there
+void move(String fromKey, String toKey) throws IOException;
+
+// Public URL the blob is served from
+String url(String key);
+
+// Signs a short-lived URL the client PUTs exactly this type and length to
+PresignedUpload presignUpload(String key, String contentType, long contentLength, Duration ttl);
+
+record BlobInfo(long size, String contentType, Instant lastModified) {
+}
+
+// headers have to be sent with the PUT, since they are part of the signature
+record PresignedUpload(String url, Map<String, List<String>> headers, Instant expiresAt) {
+}
+}
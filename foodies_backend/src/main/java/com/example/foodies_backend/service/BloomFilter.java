@@ -0,0 +1,85 @@
+// The `BloomFilter` class is a fixed-size set of strings that answers "definitely not in it" or "maybe in it".
+// Adds and lookups are lock-free; bits are never cleared, so the owner rebuilds a fresh filter when entries go away.
+package com.example.foodies_backend.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+final class BloomFilter {
+
+private final AtomicLongArray words;
+private final long bits;
+private final int hashes;
+private final int capacity;
+private final LongAdder insertions = new LongAdder();
+
+// Sized so that `expectedEntries` entries give about `falsePositiveRate` false positives
+BloomFilter(int expectedEntries, double falsePositiveRate) {
+    int n = Math.max(1, expectedEntries);
+    this.capacity = n;
+    double ln2 = Math.log(2);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+    this.words = new AtomicLongArray((int) Math.max(1, (m + 63) / 64));
+    this.bits = words.length() * 64L;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / n * ln2));
+}
+
+void add(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashes; i++) {
+        long bit = index(h1 + i * h2);
+        long mask = 1L << bit;
+        int word = (int) (bit >>> 6);
+        long current;
+        while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+            // Another bit of the same word was set concurrently; try again
+        }
+    }
+    insertions.increment();
+}
+
+boolean mightContain(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashes; i++) {
+        long bit = index(h1 + i * h2);
+        if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+            return false;
+        }
+    }
+    return true;
+}
+
+// Values added since the filter was built, counting repeats
+long insertions() {
+    return insertions.sum();
+}
+
+// Entries the filter was sized for; beyond it the false positive rate climbs
+int capacity() {
+    return capacity;
+}
+
+int hashCount() {
+    return hashes;
+}
+
+private long index(int combined) {
+    return (combined & 0x7fffffffL) % bits;
+}
+
+// 64-bit FNV-1a over the chars, finished with the SplitMix64 mixer; the two halves seed the double hashing above
+private static long hash(String value) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+        h ^= value.charAt(i);
+        h *= 0x100000001b3L;
+    }
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+}
+}
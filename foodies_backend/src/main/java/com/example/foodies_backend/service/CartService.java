@@ -1,7 +1,9 @@
 package com.example.foodies_backend.service;
 
+import com.example.foodies_backend.dto.CartDetailsResponse;
 import com.example.foodies_backend.dto.CartRequest;
 import com.example.foodies_backend.dto.CartResponse;
+import com.example.foodies_backend.dto.CartSyncRequest;
 
 
 public interface CartService {
@@ -10,7 +12,11 @@ CartResponse addToCart(CartRequest request);
 
 CartResponse getCart();
 
+CartDetailsResponse getCartDetails();
+
 void clearCart();
 
 CartResponse removeFromCart(CartRequest cartRequest);
+
+CartResponse syncCart(CartSyncRequest request);
 }
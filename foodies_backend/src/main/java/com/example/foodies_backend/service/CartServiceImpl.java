@@ -1,43 +1,52 @@
 package com.example.foodies_backend.service;
 
+import com.example.foodies_backend.dto.CartDetailsResponse;
+import com.example.foodies_backend.dto.CartLineResponse;
 import com.example.foodies_backend.dto.CartRequest;
 import com.example.foodies_backend.dto.CartResponse;
+import com.example.foodies_backend.dto.CartSyncItem;
+import com.example.foodies_backend.dto.CartSyncRequest;
+import com.example.foodies_backend.dto.FoodResponse;
 import com.example.foodies_backend.entity.CartEntity;
-import com.example.foodies_backend.repository.CartRespository;
+import com.example.foodies_backend.repository.CartRespositoryCustomImpl;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @Service
 @AllArgsConstructor
 public class CartServiceImpl implements CartService {
 
-// Injecting the CartRespository to interact with the database
-private final CartRespository cartRespository;
+// Upper bounds that keep one sync request to a sane size
+private static final int MAX_SYNC_ITEMS = 100;
+private static final int MAX_QUANTITY = 999;
+
+// Injecting the CartStore that holds the carts (MongoDB directly, or write-behind)
+private final CartStore cartStore;
 
 // Injecting the UserService to fetch the logged-in user's details
 private final UserService userService;
 
+// Injecting the FoodService to look up the foods in the cart
+private final FoodService foodService;
+
 // Adds an item to the cart for the logged-in user
 @Override
 public CartResponse addToCart(CartRequest request) {
     // Fetching the logged-in user's ID
     String loggedInUserId = userService.findByUserId();
 
-    // Retrieving the user's cart or creating a new one if it doesn't exist
-    Optional<CartEntity> cartOptional = cartRespository.findByUserId(loggedInUserId);
-    CartEntity cart = cartOptional.orElseGet(() -> new CartEntity(loggedInUserId, new HashMap<>()));
-
-    // Adding the item to the cart or updating its quantity
-    Map<String, Integer> cartItems = cart.getItems();
-    cartItems.put(request.getFoodId(), cartItems.getOrDefault(request.getFoodId(), 0) + 1);
-    cart.setItems(cartItems);
-
-    // Saving the updated cart to the database
-    cart = cartRespository.save(cart);
+    // Incrementing the item's quantity in one atomic update, creating the cart if it doesn't exist
+    CartEntity cart = cartStore.applyChanges(loggedInUserId, Map.of(validFoodId(request.getFoodId()), 1), Map.of(), true);
 
     // Converting the cart entity to a response DTO and returning it
     return convertToResponse(cart);
@@ -50,21 +59,70 @@ public CartResponse getCart() {
     String loggedInUserId = userService.findByUserId();
 
     // Retrieving the user's cart or creating an empty one if it doesn't exist
-    CartEntity entity = cartRespository.findByUserId(loggedInUserId)
+    CartEntity entity = cartStore.find(loggedInUserId)
             .orElse(new CartEntity(null, loggedInUserId, new HashMap<>()));
 
     // Converting the cart entity to a response DTO and returning it
     return convertToResponse(entity);
 }
 
+// Retrieves the cart for the logged-in user with the name, price and image of every line and the totals
+@Override
+public CartDetailsResponse getCartDetails() {
+    // Fetching the logged-in user's ID
+    String loggedInUserId = userService.findByUserId();
+
+    // Retrieving the user's cart or creating an empty one if it doesn't exist
+    CartEntity entity = cartStore.find(loggedInUserId)
+            .orElse(new CartEntity(null, loggedInUserId, new HashMap<>()));
+    Map<String, Integer> items = entity.getItems() == null ? Map.of() : entity.getItems();
+
+    // Looking up every food in the cart at once instead of one request per line
+    Map<String, FoodResponse> foods = foodService.readFoodsByIds(items.keySet());
+
+    List<CartLineResponse> lines = new ArrayList<>(items.size());
+    List<String> unavailable = new ArrayList<>();
+    BigDecimal subtotal = BigDecimal.ZERO;
+    int totalQuantity = 0;
+    for (Map.Entry<String, Integer> item : items.entrySet()) {
+        FoodResponse food = foods.get(item.getKey());
+        if (food == null) {
+            unavailable.add(item.getKey());
+            continue;
+        }
+        // Summing in BigDecimal so totals don't pick up floating point noise
+        BigDecimal lineTotal = BigDecimal.valueOf(food.getPrice()).multiply(BigDecimal.valueOf(item.getValue()));
+        subtotal = subtotal.add(lineTotal);
+        totalQuantity += item.getValue();
+        lines.add(CartLineResponse.builder()
+                .foodId(food.getId())
+                .name(food.getName())
+                .imageUrl(food.getImageUrl())
+                .category(food.getCategory())
+                .price(food.getPrice())
+                .quantity(item.getValue())
+                .lineTotal(lineTotal.setScale(2, RoundingMode.HALF_UP).doubleValue())
+                .build());
+    }
+
+    return CartDetailsResponse.builder()
+            .id(entity.getId())
+            .userId(entity.getUserId())
+            .lines(lines)
+            .unavailableFoodIds(unavailable)
+            .totalQuantity(totalQuantity)
+            .subtotal(subtotal.setScale(2, RoundingMode.HALF_UP).doubleValue())
+            .build();
+}
+
 // Clears the cart for the logged-in user
 @Override
 public void clearCart() {
     // Fetching the logged-in user's ID
     String loggedInUserId = userService.findByUserId();
 
-    // Deleting the user's cart from the database
-    cartRespository.deleteByUserId(loggedInUserId);
+    // Deleting the user's cart
+    cartStore.delete(loggedInUserId);
 }
 
 // Removes an item from the cart for the logged-in user
@@ -73,25 +131,70 @@ public CartResponse removeFromCart(CartRequest cartRequest) {
     // Fetching the logged-in user's ID
     String loggedInUserId = userService.findByUserId();
 
-    // Retrieving the user's cart or throwing an exception if it doesn't exist
-    CartEntity entity = cartRespository.findByUserId(loggedInUserId)
-            .orElseThrow(() -> new RuntimeException("Cart is not found"));
+    // Reducing the item's quantity in one atomic update, dropping it when it reaches zero
+    CartEntity entity = cartStore.applyChanges(loggedInUserId, Map.of(validFoodId(cartRequest.getFoodId()), -1), Map.of(), false);
+
+    // Throwing an exception if the user has no cart
+    if (entity == null) {
+        throw new RuntimeException("Cart is not found");
+    }
+
+    // Converting the cart entity to a response DTO and returning it
+    return convertToResponse(entity);
+}
+
+// Applies a batch of cart changes for the logged-in user in a single write
+@Override
+public CartResponse syncCart(CartSyncRequest request) {
+    // Fetching the logged-in user's ID
+    String loggedInUserId = userService.findByUserId();
+
+    if (request.getItems() == null || request.getItems().isEmpty()) {
+        return getCart();
+    }
+    if (request.getItems().size() > MAX_SYNC_ITEMS) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_SYNC_ITEMS + " items per sync");
+    }
 
-    // Removing the item from the cart or reducing its quantity
-    Map<String, Integer> cartItems = entity.getItems();
-    if (cartItems.containsKey(cartRequest.getFoodId())) {
-        int currentQty = cartItems.get(cartRequest.getFoodId());
-        if (currentQty > 0) {
-            cartItems.put(cartRequest.getFoodId(), currentQty - 1);
+    // Collapsing the changes per food, in order: an absolute quantity overrides earlier deltas, later deltas add to it
+    Map<String, Integer> quantities = new LinkedHashMap<>();
+    Map<String, Integer> deltas = new LinkedHashMap<>();
+    for (CartSyncItem item : request.getItems()) {
+        String foodId = validFoodId(item.getFoodId());
+        if ((item.getQuantity() == null) == (item.getDelta() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Each item needs either a delta or a quantity");
+        }
+        if (item.getQuantity() != null) {
+            if (item.getQuantity() < 0 || item.getQuantity() > MAX_QUANTITY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "quantity must be between 0 and " + MAX_QUANTITY);
+            }
+            deltas.remove(foodId);
+            quantities.put(foodId, item.getQuantity());
         } else {
-            cartItems.remove(cartRequest.getFoodId());
+            if (Math.abs(item.getDelta()) > MAX_QUANTITY) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "delta must be between -" + MAX_QUANTITY + " and " + MAX_QUANTITY);
+            }
+            if (quantities.containsKey(foodId)) {
+                quantities.put(foodId, Math.max(0, quantities.get(foodId) + item.getDelta()));
+            } else {
+                deltas.merge(foodId, item.getDelta(), Integer::sum);
+            }
         }
-        // Saving the updated cart to the database
-        entity = cartRespository.save(entity);
     }
 
+    // Applying every change in one atomic update, creating the cart if it doesn't exist
+    CartEntity cart = cartStore.applyChanges(loggedInUserId, deltas, quantities, true);
+
     // Converting the cart entity to a response DTO and returning it
-    return convertToResponse(entity);
+    return convertToResponse(cart);
+}
+
+// Rejects food ids that cannot be used as a field name in the cart document
+private String validFoodId(String foodId) {
+    if (foodId == null || !CartRespositoryCustomImpl.FOOD_ID.matcher(foodId).matches()) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid foodId");
+    }
+    return foodId;
 }
 
 // Converts a CartEntity to a CartResponse DTO
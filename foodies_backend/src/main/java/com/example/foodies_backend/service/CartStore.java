@@ -0,0 +1,25 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.entity.CartEntity;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+// Storage for live carts. `foodies.cart.store` picks the implementation:
+// "mongo" (default) writes every change straight to MongoDB, "write-behind" keeps carts in memory and flushes them in batches.
+public interface CartStore {
+
+Optional<CartEntity> find(String userId);
+
+// Applies quantity deltas and absolute quantities, dropping items that reach zero; returns null when there is no cart and upsert is false
+CartEntity applyChanges(String userId, Map<String, Integer> deltas, Map<String, Integer> quantities, boolean upsert);
+
+void delete(String userId);
+
+// Deletes the carts of many users at once
+void deleteAll(Collection<String> userIds);
+
+// Makes sure every pending change of this user's cart is in MongoDB
+void flush(String userId);
+}
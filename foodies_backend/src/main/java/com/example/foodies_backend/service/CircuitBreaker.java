@@ -0,0 +1,99 @@
+package com.example.foodies_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A small circuit breaker for calls to an external service.
+// After `failureThreshold` consecutive failures it opens and rejects calls for `openMillis`,
+// then lets a single trial call through (half-open); the outcome of that call closes it again or re-opens it.
+final class CircuitBreaker {
+
+private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+enum State { CLOSED, OPEN, HALF_OPEN }
+
+private final String name;
+private final int failureThreshold;
+private final long openNanos;
+private final ReentrantLock lock = new ReentrantLock();
+
+private State state = State.CLOSED;
+private int consecutiveFailures;
+private long openedAtNanos;
+private boolean trialInFlight;
+
+CircuitBreaker(String name, int failureThreshold, long openMillis) {
+    this.name = name;
+    this.failureThreshold = Math.max(1, failureThreshold);
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+}
+
+// Returns true when a call may go ahead; every permitted call must be followed by onSuccess or onFailure
+boolean tryAcquire() {
+    lock.lock();
+    try {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    } finally {
+        lock.unlock();
+    }
+}
+
+void onSuccess() {
+    lock.lock();
+    try {
+        if (state != State.CLOSED) {
+            log.info("Circuit {} closed", name);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    } finally {
+        lock.unlock();
+    }
+}
+
+void onFailure() {
+    lock.lock();
+    try {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("Circuit {} opened after {} consecutive failures", name, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            trialInFlight = false;
+        }
+    } finally {
+        lock.unlock();
+    }
+}
+
+State state() {
+    lock.lock();
+    try {
+        return state;
+    } finally {
+        lock.unlock();
+    }
+}
+}
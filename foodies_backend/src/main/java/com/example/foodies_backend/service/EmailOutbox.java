@@ -0,0 +1,287 @@
+// The `EmailOutbox` class takes emails off the request path. Callers only insert into the `email_outbox` collection;
+// a background dispatcher claims due emails in batches and hands each batch to the mail sender in one call, which
+// sends the whole batch over a single SMTP connection. Failed emails are retried with exponential backoff and,
+// after the last attempt, moved to `email_dead_letters`. Claims carry a token and time out, so several nodes can share the outbox.
+// SMTP connects, reads and writes are bounded well below the claim timeout, so a stalled server cannot hold the dispatcher
+// thread past the point where another node takes the batch over.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.EmailDeadLetterEntity;
+import com.example.foodies_backend.entity.EmailOutboxEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+public class EmailOutbox {
+
+private static final Logger log = LoggerFactory.getLogger(EmailOutbox.class);
+
+private final MongoTemplate mongoTemplate;
+private final JavaMailSender mailSender;
+private final TaskThreads taskThreads;
+private final String from;
+private final int batchSize;
+private final int maxAttempts;
+private final long pollIntervalMillis;
+private final long claimTimeoutMillis;
+private final long baseDelayMillis;
+private final long maxDelayMillis;
+
+// One dispatcher thread per node; a wake-up after an insert is coalesced with any run already queued
+private final ScheduledExecutorService dispatcher;
+private final AtomicBoolean wakeUpQueued = new AtomicBoolean();
+
+private final Counter sent;
+private final Counter retried;
+private final Counter deadLettered;
+
+public EmailOutbox(MongoTemplate mongoTemplate,
+                   JavaMailSender mailSender,
+                   TaskThreads taskThreads,
+                   MeterRegistry meterRegistry,
+                   @Value("${spring.mail.username:}") String from,
+                   @Value("${foodies.email.batch-size:50}") int batchSize,
+                   @Value("${foodies.email.max-attempts:8}") int maxAttempts,
+                   @Value("${foodies.email.poll-interval-ms:5000}") long pollIntervalMillis,
+                   @Value("${foodies.email.claim-timeout-ms:120000}") long claimTimeoutMillis,
+                   @Value("${foodies.email.smtp-timeout-ms:30000}") long smtpTimeoutMillis,
+                   @Value("${foodies.email.retry.base-delay-ms:30000}") long baseDelayMillis,
+                   @Value("${foodies.email.retry.max-delay-ms:3600000}") long maxDelayMillis) {
+    if (smtpTimeoutMillis <= 0 || smtpTimeoutMillis >= claimTimeoutMillis) {
+        throw new IllegalArgumentException("foodies.email.smtp-timeout-ms must be positive and below foodies.email.claim-timeout-ms");
+    }
+    applySmtpTimeouts(mailSender, smtpTimeoutMillis);
+    this.mongoTemplate = mongoTemplate;
+    this.mailSender = mailSender;
+    this.taskThreads = taskThreads;
+    this.from = from;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.pollIntervalMillis = pollIntervalMillis;
+    this.claimTimeoutMillis = claimTimeoutMillis;
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.dispatcher = Executors.newSingleThreadScheduledExecutor(taskThreads.factory("email-dispatcher"));
+    this.sent = Counter.builder("foodies.email.sent")
+            .description("Emails accepted by the mail server")
+            .register(meterRegistry);
+    this.retried = Counter.builder("foodies.email.retried")
+            .description("Failed sends scheduled for another attempt")
+            .register(meterRegistry);
+    this.deadLettered = Counter.builder("foodies.email.dead")
+            .description("Emails moved to the dead letters after their last attempt")
+            .register(meterRegistry);
+}
+
+// JavaMail waits forever on connect, read and write unless told otherwise; values set through
+// spring.mail.properties.* are kept
+static void applySmtpTimeouts(JavaMailSender mailSender, long timeoutMillis) {
+    if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+        return;
+    }
+    Properties properties = sender.getJavaMailProperties();
+    for (String protocol : List.of("smtp", "smtps")) {
+        for (String timeout : List.of("connectiontimeout", "timeout", "writetimeout")) {
+            properties.putIfAbsent("mail." + protocol + "." + timeout, Long.toString(timeoutMillis));
+        }
+    }
+}
+
+@PostConstruct
+void start() {
+    dispatcher.scheduleWithFixedDelay(this::drain, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+}
+
+@PreDestroy
+void stop() {
+    dispatcher.shutdown();
+}
+
+// Stores the email for sending; returns as soon as the outbox write is acknowledged
+public void enqueue(String recipient, String subject, String body) {
+    Instant now = Instant.now();
+    mongoTemplate.insert(EmailOutboxEntity.builder()
+            .recipient(recipient)
+            .subject(subject)
+            .body(body)
+            .status(EmailOutboxEntity.PENDING)
+            .createdAt(now)
+            .nextAttemptAt(now)
+            .build());
+    // Sending right away instead of at the next poll
+    if (wakeUpQueued.compareAndSet(false, true)) {
+        dispatcher.execute(() -> {
+            wakeUpQueued.set(false);
+            drain();
+        });
+    }
+}
+
+// Sends due emails batch by batch until none are left
+void drain() {
+    try {
+        List<EmailOutboxEntity> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                settle(batch, sendBatch(batch));
+            }
+        } while (batch.size() == batchSize);
+    } catch (RuntimeException ex) {
+        log.error("Dispatching emails failed", ex);
+    }
+}
+
+// Due emails, plus emails whose dispatcher died while holding them
+private Criteria due(Instant now) {
+    return new Criteria().orOperator(
+            where("status").is(EmailOutboxEntity.PENDING).and("nextAttemptAt").lte(now),
+            where("status").is(EmailOutboxEntity.SENDING).and("claimedAt").lt(now.minusMillis(claimTimeoutMillis)));
+}
+
+// Claims up to batchSize due emails with one multi-update; emails another node claimed first are skipped
+private List<EmailOutboxEntity> claimBatch() {
+    Instant now = Instant.now();
+    Query candidates = new Query(due(now))
+            .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"))
+            .limit(batchSize);
+    candidates.fields().include("id");
+    List<String> ids = mongoTemplate.find(candidates, EmailOutboxEntity.class).stream()
+            .map(EmailOutboxEntity::getId)
+            .toList();
+    if (ids.isEmpty()) {
+        return List.of();
+    }
+    String token = UUID.randomUUID().toString();
+    mongoTemplate.updateMulti(new Query(new Criteria().andOperator(where("id").in(ids), due(now))),
+            new Update().set("status", EmailOutboxEntity.SENDING).set("claimToken", token).set("claimedAt", now),
+            EmailOutboxEntity.class);
+    return mongoTemplate.find(new Query(where("id").in(ids).and("claimToken").is(token)), EmailOutboxEntity.class);
+}
+
+// Sends a batch in one call to the mail sender (one SMTP connection); returns the error of each email that failed
+Map<String, Exception> sendBatch(List<EmailOutboxEntity> batch) {
+    SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+    Map<Object, String> idsByMessage = new IdentityHashMap<>(); // Messages compare by value, emails by id
+    for (int i = 0; i < messages.length; i++) {
+        EmailOutboxEntity email = batch.get(i);
+        SimpleMailMessage message = new SimpleMailMessage();
+        if (!from.isEmpty()) {
+            message.setFrom(from);
+        }
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        messages[i] = message;
+        idsByMessage.put(message, email.getId());
+    }
+
+    Map<String, Exception> failures = new HashMap<>();
+    try {
+        // JavaMail blocks inside synchronized code, which would pin a virtual thread
+        taskThreads.runPinningProne(() -> {
+            mailSender.send(messages);
+            return null;
+        });
+    } catch (MailSendException ex) {
+        // Only the listed messages failed (rejected recipient, or the connection broke at that point)
+        ex.getFailedMessages().forEach((message, error) -> failures.put(idsByMessage.get(message), error));
+        if (failures.isEmpty()) {
+            batch.forEach(email -> failures.put(email.getId(), ex));
+        }
+    } catch (MailException ex) {
+        // E.g. authentication failed: nothing was sent
+        batch.forEach(email -> failures.put(email.getId(), ex));
+    }
+    return failures;
+}
+
+// Deletes what was sent and reschedules or dead-letters what failed
+private void settle(List<EmailOutboxEntity> batch, Map<String, Exception> failures) {
+    List<String> delivered = new ArrayList<>();
+    for (EmailOutboxEntity email : batch) {
+        Exception error = failures.get(email.getId());
+        if (error == null) {
+            delivered.add(email.getId());
+            continue;
+        }
+        int attempts = email.getAttempts() + 1;
+        String message = String.valueOf(error.getMessage());
+        if (attempts >= maxAttempts) {
+            deadLetter(email, attempts, message);
+        } else {
+            Instant next = Instant.now().plus(backoff(attempts, baseDelayMillis, maxDelayMillis));
+            mongoTemplate.updateFirst(new Query(where("id").is(email.getId()).and("claimToken").is(email.getClaimToken())),
+                    new Update().set("status", EmailOutboxEntity.PENDING)
+                            .set("attempts", attempts)
+                            .set("lastError", message)
+                            .set("nextAttemptAt", next)
+                            .unset("claimToken"),
+                    EmailOutboxEntity.class);
+            retried.increment();
+            log.warn("Sending email {} failed (attempt {}), retrying at {}: {}", email.getId(), attempts, next, message);
+        }
+    }
+    if (!delivered.isEmpty()) {
+        mongoTemplate.remove(new Query(where("id").in(delivered)), EmailOutboxEntity.class);
+        sent.increment(delivered.size());
+    }
+}
+
+private void deadLetter(EmailOutboxEntity email, int attempts, String error) {
+    // Saved by id, so repeating this after a crash between the two writes does no harm
+    mongoTemplate.save(EmailDeadLetterEntity.builder()
+            .id(email.getId())
+            .recipient(email.getRecipient())
+            .subject(email.getSubject())
+            .body(email.getBody())
+            .attempts(attempts)
+            .lastError(error)
+            .createdAt(email.getCreatedAt())
+            .failedAt(Instant.now())
+            .build());
+    mongoTemplate.remove(new Query(where("id").is(email.getId())), EmailOutboxEntity.class);
+    deadLettered.increment();
+    log.error("Gave up on email {} to {} after {} attempts: {}", email.getId(), email.getRecipient(), attempts, error);
+}
+
+// Exponential backoff with equal jitter: half the delay is fixed, the other half random
+static Duration backoff(int attempts, long baseDelayMillis, long maxDelayMillis) {
+    long delay = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempts - 1, 20));
+    return Duration.ofMillis(delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+}
+}
@@ -1,24 +1,18 @@
 package com.example.foodies_backend.service;
 
 import lombok.AllArgsConstructor;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 @Service
 @AllArgsConstructor
 public class EmailService {
 
-private final JavaMailSender mailSender;
+private final EmailOutbox emailOutbox;
 
+// Queues the email; it is sent in the background, so the request doesn't wait for the mail server
 public void sendPasswordResetEmail(String to, String token) {
 	String resetUrl = "http://localhost:5173/reset-password?token=" + token;
 
-	SimpleMailMessage message = new SimpleMailMessage();
-	message.setTo(to);
-	message.setSubject("Password Reset Request");
-	message.setText("Click the link to reset your password:\n" + resetUrl);
-
-	mailSender.send(message);
+	emailOutbox.enqueue(to, "Password Reset Request", "Click the link to reset your password:\n" + resetUrl);
 }
 }
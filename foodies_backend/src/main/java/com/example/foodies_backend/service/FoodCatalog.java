@@ -0,0 +1,136 @@
+// The `FoodCatalog` class is an immutable, versioned snapshot of the whole menu held in memory.
+// A new snapshot is built (or patched) whenever foods are added or deleted, so readers never see a half-updated list.
+// Each snapshot also carries the menu already serialized to JSON and gzip, so GET /api/foods only copies bytes.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.dto.FoodResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+@Getter
+public final class FoodCatalog {
+
+// Monotonic version of this snapshot on the current node
+private final long version;
+// Time the snapshot was built, used to decide when to revalidate against the database
+private final long loadedAtMillis;
+// Read-only list of foods in insertion order
+private final List<FoodResponse> foods;
+// Read-only index of foods by id
+private final Map<String, FoodResponse> byId;
+// The food list serialized to JSON once per snapshot
+private final byte[] json;
+// The JSON payload compressed with gzip once per snapshot
+private final byte[] gzipJson;
+// Strong ETag of the JSON payload, derived from its content so every node produces the same tag for the same menu
+private final String etag;
+// Strong ETag of the gzip payload (a different representation needs a different strong validator)
+private final String gzipEtag;
+
+@Getter(AccessLevel.NONE)
+private final ObjectWriter writer;
+
+private FoodCatalog(long version, Map<String, FoodResponse> byId, long loadedAtMillis, ObjectWriter writer) {
+    this.version = version;
+    this.byId = Collections.unmodifiableMap(byId);
+    this.foods = List.copyOf(byId.values());
+    this.loadedAtMillis = loadedAtMillis;
+    this.writer = writer;
+    this.json = serialize(writer, this.foods);
+    this.gzipJson = gzip(this.json);
+    String hash = hash(this.json);
+    this.etag = "\"" + hash + "\"";
+    this.gzipEtag = "\"" + hash + "-gzip\"";
+}
+
+// Copies an existing snapshot with a new load time, reusing its payloads
+private FoodCatalog(FoodCatalog source, long loadedAtMillis) {
+    this.version = source.version;
+    this.byId = source.byId;
+    this.foods = source.foods;
+    this.loadedAtMillis = loadedAtMillis;
+    this.writer = source.writer;
+    this.json = source.json;
+    this.gzipJson = source.gzipJson;
+    this.etag = source.etag;
+    this.gzipEtag = source.gzipEtag;
+}
+
+// Builds a snapshot from a freshly loaded list of foods, serializing it with the given writer
+public static FoodCatalog of(long version, List<FoodResponse> foods, ObjectWriter writer) {
+    Map<String, FoodResponse> byId = new LinkedHashMap<>();
+    for (FoodResponse food : foods) {
+        byId.put(food.getId(), food);
+    }
+    return new FoodCatalog(version, byId, System.currentTimeMillis(), writer);
+}
+
+// Returns a new snapshot with the given food added (or replaced)
+public FoodCatalog withFood(FoodResponse food) {
+    Map<String, FoodResponse> copy = new LinkedHashMap<>(byId);
+    copy.put(food.getId(), food);
+    return new FoodCatalog(version + 1, copy, loadedAtMillis, writer);
+}
+
+// Returns a new snapshot without the given food
+public FoodCatalog withoutFood(String id) {
+    if (!byId.containsKey(id)) {
+        return this;
+    }
+    Map<String, FoodResponse> copy = new LinkedHashMap<>(byId);
+    copy.remove(id);
+    return new FoodCatalog(version + 1, copy, loadedAtMillis, writer);
+}
+
+// Returns a copy of this snapshot marked as revalidated now, keeping the version when nothing changed
+public FoodCatalog revalidated() {
+    return new FoodCatalog(this, System.currentTimeMillis());
+}
+
+private static byte[] serialize(ObjectWriter writer, List<FoodResponse> foods) {
+    try {
+        return writer.writeValueAsBytes(foods);
+    } catch (JsonProcessingException ex) {
+        throw new IllegalStateException("Failed to serialize the food catalog", ex);
+    }
+}
+
+// Compresses once at the best level, since the cost is paid per catalog change rather than per request
+private static byte[] gzip(byte[] data) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+        {
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }) {
+        gzip.write(data);
+    } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+    }
+    return out.toByteArray();
+}
+
+private static String hash(byte[] data) {
+    try {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+        return HexFormat.of().formatHex(digest, 0, 16);
+    } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+}
+}
@@ -0,0 +1,401 @@
+// The `FoodSearchIndex` class is an in-memory inverted index over food name, description and category.
+// It supports ranked, typo-tolerant search with category and price-band facets, and prefix autocomplete.
+// The index is rebuilt when the catalog is reloaded and patched in place when a single food is added or deleted.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.dto.FoodResponse;
+import com.example.foodies_backend.dto.FoodSearchResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Component
+public class FoodSearchIndex {
+
+// Field weights: a hit in the name matters more than one in the category, which matters more than the description
+private static final float NAME_WEIGHT = 3f;
+private static final float CATEGORY_WEIGHT = 2f;
+private static final float DESCRIPTION_WEIGHT = 1f;
+// Score factors for approximate matches
+private static final float PREFIX_FACTOR = 0.8f;
+private static final float FUZZY_FACTOR = 0.6f;
+// Shortest token that is matched with one typo, shorter words give too many false positives
+private static final int MIN_FUZZY_LENGTH = 4;
+// Longest term that gets typo variants, bounds the size of the variant table
+private static final int MAX_FUZZY_LENGTH = 24;
+// Maximum number of dictionary terms a prefix expands to
+private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+// Upper bounds of the price bands used for facet counts, e.g. 10,20,50,100 -> 0-10, 10-20, 20-50, 50-100, 100+
+@Value("${foodies.search.price-bands:10,20,50,100}")
+private double[] priceBands;
+
+private final ReadWriteLock lock = new ReentrantReadWriteLock();
+private Index index = new Index();
+
+// Replaces the whole index with one built from the given foods
+public void rebuild(Collection<FoodResponse> foods) {
+    Index rebuilt = new Index();
+    for (FoodResponse food : foods) {
+        rebuilt.add(food);
+    }
+    lock.writeLock().lock();
+    try {
+        index = rebuilt;
+    } finally {
+        lock.writeLock().unlock();
+    }
+}
+
+// Adds or replaces a single food
+public void index(FoodResponse food) {
+    lock.writeLock().lock();
+    try {
+        index.remove(food.getId());
+        index.add(food);
+    } finally {
+        lock.writeLock().unlock();
+    }
+}
+
+// Removes a single food
+public void remove(String foodId) {
+    lock.writeLock().lock();
+    try {
+        index.remove(foodId);
+    } finally {
+        lock.writeLock().unlock();
+    }
+}
+
+// Runs a ranked search; the category facet ignores the category filter so clients can switch categories
+public FoodSearchResponse search(String query, String category, int limit) {
+    List<String> tokens = tokenizeQuery(query);
+    lock.readLock().lock();
+    try {
+        Map<String, Match> matches = index.match(tokens);
+
+        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+        Map<String, Integer> priceBandCounts = new LinkedHashMap<>();
+        for (String band : bandLabels()) {
+            priceBandCounts.put(band, 0);
+        }
+
+        PriorityQueue<Match> top = new PriorityQueue<>(Match.RANKING.reversed());
+        int total = 0;
+        for (Match match : matches.values()) {
+            FoodResponse food = match.food;
+            if (food.getCategory() != null) {
+                categoryCounts.merge(food.getCategory(), 1, Integer::sum);
+            }
+            if (category != null && !category.equalsIgnoreCase(food.getCategory())) {
+                continue;
+            }
+            total++;
+            priceBandCounts.merge(bandLabel(food.getPrice()), 1, Integer::sum);
+            // Keeping only the best `limit` matches in a bounded heap (worst match on top)
+            top.offer(match);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<FoodResponse> items = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            items.add(top.poll().food);
+        }
+        Collections.reverse(items);
+
+        return FoodSearchResponse.builder()
+                .items(items)
+                .total(total)
+                .categories(categoryCounts)
+                .priceBands(priceBandCounts)
+                .build();
+    } finally {
+        lock.readLock().unlock();
+    }
+}
+
+// Suggests dictionary terms starting with the given prefix, most common first
+public List<String> suggest(String prefix, int limit) {
+    List<String> tokens = tokenizeQuery(prefix);
+    if (tokens.isEmpty()) {
+        return List.of();
+    }
+    String last = tokens.get(tokens.size() - 1);
+    lock.readLock().lock();
+    try {
+        return index.withPrefix(last).entrySet().stream()
+                .sorted(Map.Entry.<String, Map<String, Float>>comparingByValue(Comparator.comparingInt(Map::size)).reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    } finally {
+        lock.readLock().unlock();
+    }
+}
+
+private String bandLabel(double price) {
+    double lower = 0;
+    for (double upper : priceBands) {
+        if (price < upper) {
+            return formatBand(lower) + "-" + formatBand(upper);
+        }
+        lower = upper;
+    }
+    return formatBand(lower) + "+";
+}
+
+private List<String> bandLabels() {
+    List<String> labels = new ArrayList<>();
+    double lower = 0;
+    for (double upper : priceBands) {
+        labels.add(formatBand(lower) + "-" + formatBand(upper));
+        lower = upper;
+    }
+    labels.add(formatBand(lower) + "+");
+    return labels;
+}
+
+private static String formatBand(double value) {
+    return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+}
+
+// Lower-cases, strips accents and splits on anything that is not a letter or digit; single characters are not indexed
+static List<String> tokenize(String text) {
+    return tokenize(text, false);
+}
+
+// Like `tokenize`, but keeps a single-character last token: it is the start of the word being typed, matched as a prefix
+static List<String> tokenizeQuery(String text) {
+    return tokenize(text, true);
+}
+
+private static List<String> tokenize(String text, boolean keepShortLast) {
+    if (text == null || text.isBlank()) {
+        return List.of();
+    }
+    String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase();
+    String[] parts = TOKEN_SEPARATOR.split(normalized);
+    List<String> tokens = new ArrayList<>();
+    for (int i = 0; i < parts.length; i++) {
+        if (parts[i].length() > 1 || (keepShortLast && i == parts.length - 1 && parts[i].length() == 1)) {
+            tokens.add(parts[i]);
+        }
+    }
+    return tokens;
+}
+
+// Optimal string alignment distance capped at 2, enough to accept one substitution, insertion, deletion or transposition
+static int editDistance(String a, String b) {
+    if (Math.abs(a.length() - b.length()) > 1) {
+        return 2;
+    }
+    int[] previous2 = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+        previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+        current[0] = i;
+        int rowMin = current[0];
+        for (int j = 1; j <= b.length(); j++) {
+            int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+            current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+            if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                current[j] = Math.min(current[j], previous2[j - 2] + 1);
+            }
+            rowMin = Math.min(rowMin, current[j]);
+        }
+        if (rowMin > 1) {
+            return 2;
+        }
+        int[] recycled = previous2;
+        previous2 = previous;
+        previous = current;
+        current = recycled;
+    }
+    return Math.min(previous[b.length()], 2);
+}
+
+// All strings obtained by deleting exactly one character
+private static Set<String> deletions(String term) {
+    Set<String> variants = new HashSet<>();
+    for (int i = 0; i < term.length(); i++) {
+        variants.add(term.substring(0, i) + term.substring(i + 1));
+    }
+    return variants;
+}
+
+// A scored hit for one food: more matched query tokens first, then higher score, then name for stable ordering
+private static final class Match {
+    private static final Comparator<Match> RANKING = Comparator.<Match>comparingInt(m -> m.matchedTokens).reversed()
+            .thenComparing(Comparator.<Match>comparingDouble(m -> m.score).reversed())
+            .thenComparing(m -> m.food.getName() == null ? "" : m.food.getName());
+
+    private final FoodResponse food;
+    private int matchedTokens;
+    private double score;
+    private int lastToken = -1;
+
+    private Match(FoodResponse food) {
+        this.food = food;
+    }
+}
+
+// The mutable index state; replaced wholesale on rebuild, patched under the write lock otherwise
+private static final class Index {
+    // Indexed foods by id
+    private final Map<String, FoodResponse> foods = new HashMap<>();
+    // Sorted term dictionary: term -> (food id -> field-weighted term frequency); sorted so prefixes are range scans
+    private final TreeMap<String, Map<String, Float>> postings = new TreeMap<>();
+    // One-deletion variants of every term -> terms, used to find terms one typo away from a query token
+    private final Map<String, Set<String>> variants = new HashMap<>();
+    // Terms of each food, needed to remove it again
+    private final Map<String, Set<String>> termsByFood = new HashMap<>();
+
+    private void add(FoodResponse food) {
+        Map<String, Float> weights = new HashMap<>();
+        for (String token : tokenize(food.getName())) {
+            weights.merge(token, NAME_WEIGHT, Float::sum);
+        }
+        for (String token : tokenize(food.getCategory())) {
+            weights.merge(token, CATEGORY_WEIGHT, Float::sum);
+        }
+        for (String token : tokenize(food.getDescription())) {
+            weights.merge(token, DESCRIPTION_WEIGHT, Float::sum);
+        }
+        foods.put(food.getId(), food);
+        termsByFood.put(food.getId(), weights.keySet());
+        for (Map.Entry<String, Float> entry : weights.entrySet()) {
+            String term = entry.getKey();
+            Map<String, Float> posting = postings.get(term);
+            if (posting == null) {
+                posting = new HashMap<>();
+                postings.put(term, posting);
+                if (term.length() >= MIN_FUZZY_LENGTH && term.length() <= MAX_FUZZY_LENGTH) {
+                    for (String variant : deletions(term)) {
+                        variants.computeIfAbsent(variant, key -> new HashSet<>()).add(term);
+                    }
+                }
+            }
+            posting.put(food.getId(), entry.getValue());
+        }
+    }
+
+    private void remove(String foodId) {
+        Set<String> terms = termsByFood.remove(foodId);
+        foods.remove(foodId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Float> posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            posting.remove(foodId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+                if (term.length() >= MIN_FUZZY_LENGTH && term.length() <= MAX_FUZZY_LENGTH) {
+                    for (String variant : deletions(term)) {
+                        Set<String> owners = variants.get(variant);
+                        if (owners != null && owners.remove(term) && owners.isEmpty()) {
+                            variants.remove(variant);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private NavigableMap<String, Map<String, Float>> withPrefix(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    // Scores every food matching at least one query token
+    private Map<String, Match> match(List<String> tokens) {
+        Map<String, Match> matches = new HashMap<>();
+        if (tokens.isEmpty()) {
+            // Empty query: every food matches with the same score, so facets describe the whole menu
+            for (FoodResponse food : foods.values()) {
+                matches.put(food.getId(), new Match(food));
+            }
+            return matches;
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            Map<String, Float> expansions = expand(token, i == tokens.size() - 1);
+            for (Map.Entry<String, Float> expansion : expansions.entrySet()) {
+                Map<String, Float> posting = postings.get(expansion.getKey());
+                double idf = Math.log(1 + (double) foods.size() / posting.size());
+                for (Map.Entry<String, Float> hit : posting.entrySet()) {
+                    Match match = matches.computeIfAbsent(hit.getKey(), id -> new Match(foods.get(id)));
+                    match.score += hit.getValue() * idf * expansion.getValue();
+                    if (match.lastToken != i) {
+                        match.lastToken = i;
+                        match.matchedTokens++;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    // Maps a query token to the dictionary terms it stands for, with a score factor for each
+    private Map<String, Float> expand(String token, boolean isLast) {
+        Map<String, Float> expansions = new HashMap<>();
+        if (postings.containsKey(token)) {
+            expansions.put(token, 1f);
+        }
+        // The last token is still being typed, so it also matches as a prefix
+        if (isLast) {
+            int count = 0;
+            for (String term : withPrefix(token).keySet()) {
+                if (count++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                expansions.putIfAbsent(term, PREFIX_FACTOR);
+            }
+        }
+        // Without an exact hit, accept terms one typo away
+        if (expansions.isEmpty() && token.length() >= MIN_FUZZY_LENGTH && token.length() <= MAX_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>(variants.getOrDefault(token, Set.of()));
+            for (String deletion : deletions(token)) {
+                if (postings.containsKey(deletion)) {
+                    candidates.add(deletion);
+                }
+                candidates.addAll(variants.getOrDefault(deletion, Set.of()));
+            }
+            for (String candidate : candidates) {
+                if (editDistance(token, candidate) <= 1) {
+                    expansions.put(candidate, FUZZY_FACTOR);
+                }
+            }
+        }
+        return expansions;
+    }
+}
+}
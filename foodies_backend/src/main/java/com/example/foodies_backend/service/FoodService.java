@@ -1,11 +1,19 @@
 package com.example.foodies_backend.service;
 
+import com.example.foodies_backend.dto.FoodConfirmRequest;
+import com.example.foodies_backend.dto.FoodImageUploadRequest;
+import com.example.foodies_backend.dto.FoodImageUploadResponse;
+import com.example.foodies_backend.dto.FoodPageRequest;
+import com.example.foodies_backend.dto.FoodPageResponse;
 import com.example.foodies_backend.dto.FoodRequest;
 import com.example.foodies_backend.dto.FoodResponse;
+import com.example.foodies_backend.dto.FoodSearchResponse;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FoodService {
 
@@ -13,10 +21,24 @@ String uploadFile(MultipartFile file);
 
 FoodResponse addFood(FoodRequest request, MultipartFile file);
 
+FoodImageUploadResponse presignImageUpload(FoodImageUploadRequest request);
+
+FoodResponse confirmFood(FoodConfirmRequest request);
+
 List<FoodResponse> readFoods();
 
+FoodCatalog readCatalog();
+
+FoodPageResponse readFoodPage(FoodPageRequest request);
+
+FoodSearchResponse searchFoods(String query, String category, int limit);
+
+List<String> suggestFoods(String prefix, int limit);
+
 FoodResponse readFood(String id);
 
+Map<String, FoodResponse> readFoodsByIds(Collection<String> ids);
+
 boolean deleteFile(String filename);
 
 void deleteFood(String id);
@@ -1,71 +1,132 @@
 // The `FoodServiceImpl` class implements the `FoodService` interface to handle food-related operations.
-// It includes methods for uploading files to AWS S3, managing food entities in the database, and converting between DTOs and entities.
+// It includes methods for uploading files to the blob store (S3 or local disk), managing food entities in the database, and converting between DTOs and entities.
 package com.example.foodies_backend.service;
 
+import com.example.foodies_backend.dto.FoodConfirmRequest;
+import com.example.foodies_backend.dto.FoodImageUploadRequest;
+import com.example.foodies_backend.dto.FoodImageUploadResponse;
+import com.example.foodies_backend.dto.FoodPageRequest;
+import com.example.foodies_backend.dto.FoodPageResponse;
 import com.example.foodies_backend.dto.FoodRequest;
 import com.example.foodies_backend.dto.FoodResponse;
+import com.example.foodies_backend.dto.FoodSearchResponse;
 import com.example.foodies_backend.entity.FoodEntity;
+import com.example.foodies_backend.entity.PendingUploadEntity;
 import com.example.foodies_backend.repository.FoodRepository;
 import com.example.foodies_backend.service.FoodService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mongodb.client.result.UpdateResult;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.s3.model.PutObjectResponse;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Service
 public class FoodServiceImpl implements FoodService {
 
+private static final Logger log = LoggerFactory.getLogger(FoodServiceImpl.class);
+
+private static final int DEFAULT_PAGE_SIZE = 20; // Page size when the client does not ask for one
+private static final int MAX_PAGE_SIZE = 100; // Upper bound on page size, keeps responses small
+private static final int MAGIC_BYTES = 12; // Leading bytes needed to recognise the accepted image formats
+private static final Map<String, String> IMAGE_EXTENSIONS = Map.of(
+        "image/jpeg", "jpg",
+        "image/png", "png",
+        "image/webp", "webp",
+        "image/gif", "gif"); // Accepted upload types and the extension their keys get
+private static final Pattern UPLOAD_KEY = Pattern.compile("[0-9a-f-]{36}\\.(jpg|png|webp|gif)"); // Keys issued for direct uploads
+
 @Autowired
-private S3Client s3Client; // AWS S3 client for file operations
+private BlobStore blobStore; // Where uploaded images are kept: S3 or local disk
 
 @Autowired
 private FoodRepository foodRepository; // Repository for accessing food data
 
-@Value("${aws.s3.bucketname}")
-private String bucketName; // AWS S3 bucket name from application properties
+@Autowired
+private FoodSearchIndex searchIndex; // In-memory search index over the catalog
+
+@Autowired
+private ObjectMapper objectMapper; // Shared, application-wide Jackson mapper
+
+@Autowired
+private ImageDerivativePipeline imagePipeline; // Renders thumbnails of uploaded images in the background
+
+@Autowired
+private MongoTemplate mongoTemplate; // For targeted updates of single fields
+
+@Value("${foodies.upload.max-bytes:10485760}")
+private long maxUploadBytes; // Largest image accepted, checked before anything is read
+
+@Value("${foodies.upload.presign-ttl-seconds:300}")
+private long presignTtlSeconds; // How long a presigned upload URL stays valid
+
+@Value("${foodies.upload.confirm-window-seconds:3600}")
+private long confirmWindowSeconds; // How long after its upload URL expires an issued key can still be confirmed
+
+@Value("${foodies.catalog.revalidate-ms:30000}")
+private long catalogRevalidateMillis; // How long a catalog snapshot is served before it is checked against the database
+
+private final AtomicReference<FoodCatalog> catalog = new AtomicReference<>(); // Current in-memory catalog snapshot (null until first read)
+private final ReentrantLock catalogLoadLock = new ReentrantLock(); // Ensures only one thread reloads the catalog at a time
+private final ReentrantLock catalogPatchLock = new ReentrantLock(); // Orders reloads and patches of the catalog and search index
 
-// Uploads a file to AWS S3 and returns the file URL
+private ObjectWriter catalogWriter; // Writer for the catalog payload, resolved once from the shared ObjectMapper
+
+// Resolving the catalog serializer once instead of on every snapshot
+@PostConstruct
+void initCatalogWriter() {
+    catalogWriter = objectMapper.writerFor(new TypeReference<List<FoodResponse>>() {});
+}
+
+// Uploads a file to the blob store and returns the file URL, streaming it instead of loading it onto the heap
 @Override
 public String uploadFile(MultipartFile file) {
-    String filenameExtension = file.getOriginalFilename()
-            .substring(file.getOriginalFilename().lastIndexOf(".") + 1); // Extracting file extension
+    // Checking size and type before anything is sent
+    String declaredType = file.getContentType() == null ? "" : file.getContentType().toLowerCase();
+    String filenameExtension = checkImage(declaredType, file.getSize()); // Extension derived from the type, not the client's file name
     String key = UUID.randomUUID().toString() + "." + filenameExtension; // Generating a unique file key
 
-    try {
-        // Building the S3 PutObjectRequest
-        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(file.getContentType())
-                .build();
-
-        // Uploading the file to S3
-        PutObjectResponse response = s3Client.putObject(
-                putObjectRequest,
-                RequestBody.fromBytes(file.getBytes())
-        );
-
-        // Returning the file URL if the upload is successful
-        if (response.sdkHttpResponse().isSuccessful()) {
-            return "https://" + bucketName + ".s3.amazonaws.com/" + key;
-        } else {
-            throw new ResponseStatusException(
-                    HttpStatus.INTERNAL_SERVER_ERROR,
-                    "File upload failed"
-            );
+    try (BufferedInputStream in = new BufferedInputStream(file.getInputStream())) {
+        // Checking the first bytes really are the declared image type (the stream is reset afterwards)
+        in.mark(MAGIC_BYTES);
+        byte[] head = in.readNBytes(MAGIC_BYTES);
+        in.reset();
+        if (!matchesImageSignature(declaredType, head)) {
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "File content does not match " + declaredType);
         }
+
+        // Streaming the file to the blob store (multipart for large files on S3)
+        blobStore.put(key, declaredType, file.getSize(), null, in);
+        return blobStore.url(key);
     } catch (IOException ex) {
         throw new ResponseStatusException(
                 HttpStatus.INTERNAL_SERVER_ERROR,
@@ -74,52 +135,375 @@ public String uploadFile(MultipartFile file) {
     }
 }
 
-// Adds a new food item to the database and uploads its image to S3
+// Checks the size and type of an image before anything is uploaded and returns the extension for its key
+private String checkImage(String contentType, long size) {
+    if (size <= 0) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is empty");
+    }
+    if (size > maxUploadBytes) {
+        throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "File is larger than " + maxUploadBytes + " bytes");
+    }
+    String extension = contentType == null ? null : IMAGE_EXTENSIONS.get(contentType);
+    if (extension == null) {
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Only JPEG, PNG, WebP and GIF images are accepted");
+    }
+    return extension;
+}
+
+// Compares the leading bytes of a file with the signature of its declared image type
+private static boolean matchesImageSignature(String contentType, byte[] head) {
+    switch (contentType) {
+        case "image/jpeg":
+            return head.length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF;
+        case "image/png":
+            return head.length >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G';
+        case "image/gif":
+            return head.length >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8';
+        case "image/webp":
+            return head.length >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                    && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P';
+        default:
+            return false;
+    }
+}
+
+// Adds a new food item to the database and uploads its image to the blob store
 @Override
 public FoodResponse addFood(FoodRequest request, MultipartFile file) {
+    String imageUrl = uploadFile(file); // Uploading the image file to the blob store
+    return saveFood(request, imageUrl);
+}
+
+// First step of a direct upload: records the issued key and signs a short-lived PUT URL under the pending prefix,
+// so the image goes straight to the bucket and is only kept if the food is confirmed
+@Override
+public FoodImageUploadResponse presignImageUpload(FoodImageUploadRequest request) {
+    String contentType = request.getContentType() == null ? "" : request.getContentType().toLowerCase();
+    String key = UUID.randomUUID().toString() + "." + checkImage(contentType, request.getContentLength());
+
+    // Type and length are signed, so the store rejects a different type or a bigger file
+    BlobStore.PresignedUpload presigned = blobStore.presignUpload(BlobStore.PENDING_PREFIX + key, contentType,
+            request.getContentLength(), Duration.ofSeconds(presignTtlSeconds));
+    mongoTemplate.insert(PendingUploadEntity.builder()
+            .key(key)
+            .contentType(contentType)
+            .contentLength(request.getContentLength())
+            .createdAt(Instant.now())
+            .expiresAt(presigned.expiresAt().plusSeconds(confirmWindowSeconds))
+            .build());
+
+    return FoodImageUploadResponse.builder()
+            .key(key)
+            .uploadUrl(presigned.url())
+            .headers(presigned.headers())
+            .expiresAt(presigned.expiresAt())
+            .build();
+}
+
+// Second step of a direct upload: checks the object really is in the bucket, uses up the issued key, moves the image
+// out of the pending prefix and creates the food
+@Override
+public FoodResponse confirmFood(FoodConfirmRequest request) {
+    String key = request.getImageKey();
+    if (key == null || !UPLOAD_KEY.matcher(key).matches() || request.getFood() == null) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "imageKey and food are required");
+    }
+    String pendingKey = BlobStore.PENDING_PREFIX + key;
+    BlobStore.BlobInfo blob = blobStore.stat(pendingKey);
+    if (blob == null) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No uploaded image for " + key);
+    }
+    checkImage(blob.contentType() == null ? null : blob.contentType().toLowerCase(), blob.size());
+
+    // Removed in one step, so of two confirms of the same key only one gets it; keys that were never issued, have
+    // expired or were already confirmed (another food's image, say) are refused
+    PendingUploadEntity pending = mongoTemplate.findAndRemove(
+            new Query(where("key").is(key).and("expiresAt").gt(Instant.now())), PendingUploadEntity.class);
+    if (pending == null) {
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload " + key + " is unknown, expired or already confirmed");
+    }
+
+    try {
+        blobStore.move(pendingKey, key);
+    } catch (IOException ex) {
+        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An error occurred while storing the image");
+    }
+    return saveFood(request.getFood(), blobStore.url(key));
+}
+
+// Stores a new food and patches the in-memory catalog and search index
+private FoodResponse saveFood(FoodRequest request, String imageUrl) {
     FoodEntity newFoodEntity = convertToEntity(request); // Converting the request DTO to an entity
-    String imageUrl = uploadFile(file); // Uploading the image file to S3
     newFoodEntity.setImageUrl(imageUrl); // Setting the image URL in the entity
     newFoodEntity = foodRepository.save(newFoodEntity); // Saving the entity to the database
-    return convertToResponse(newFoodEntity); // Converting the entity to a response DTO
+    FoodResponse response = convertToResponse(newFoodEntity); // Converting the entity to a response DTO
+    catalogPatchLock.lock();
+    try {
+        catalog.updateAndGet(current -> current == null ? null : current.withFood(response)); // Patching the cached catalog
+        searchIndex.index(response); // Patching the search index
+    } finally {
+        catalogPatchLock.unlock();
+    }
+    deriveImageVariants(response.getId(), imageUrl);
+    return response;
+}
+
+// Starts rendering the thumbnails; the food is served with its original image until they are ready
+private void deriveImageVariants(String id, String imageUrl) {
+    String sourceKey = imageUrl.substring(imageUrl.lastIndexOf("/") + 1); // Extracting the file name from the URL
+    imagePipeline.derive(sourceKey)
+            .thenAccept(keys -> attachImageVariants(id, keys))
+            .exceptionally(ex -> {
+                log.warn("No image variants for food {}: {}", id, ex.getMessage());
+                return null;
+            });
+}
+
+// Stores the variant URLs on the food and patches the catalog and search index with them
+private void attachImageVariants(String id, Map<String, String> keys) {
+    Map<String, String> urls = new LinkedHashMap<>();
+    keys.forEach((name, key) -> urls.put(name, blobStore.url(key)));
+    UpdateResult result = mongoTemplate.updateFirst(new Query(where("id").is(id)),
+            new Update().set("imageVariants", urls), FoodEntity.class);
+    if (result.getMatchedCount() == 0) {
+        deleteImageVariants(id, urls); // The food was deleted while its thumbnails were rendering
+        return;
+    }
+    catalogPatchLock.lock();
+    try {
+        FoodCatalog updated = catalog.updateAndGet(current -> {
+            if (current == null || !current.getById().containsKey(id)) {
+                return current;
+            }
+            return current.withFood(current.getById().get(id).toBuilder().imageVariants(urls).build());
+        });
+        if (updated != null && updated.getById().containsKey(id)) {
+            searchIndex.index(updated.getById().get(id));
+        }
+    } finally {
+        catalogPatchLock.unlock();
+    }
+}
+
+// Deletes the variant objects of a food, except those another food with the same image still points to
+private void deleteImageVariants(String id, Map<String, String> urls) {
+    if (urls == null) {
+        return;
+    }
+    urls.forEach((name, url) -> {
+        // Variant keys are content hashes, so identical images share them
+        boolean shared = mongoTemplate.exists(new Query(where("imageVariants." + name).is(url).and("id").ne(id)), FoodEntity.class);
+        if (!shared) {
+            deleteFile(url.substring(url.lastIndexOf("/") + 1));
+        }
+    });
 }
 
-// Retrieves all food items from the database
+// Retrieves all food items from the in-memory catalog snapshot
 @Override
 public List<FoodResponse> readFoods() {
-    return foodRepository.findAll().stream()
-            .map(this::convertToResponse) // Converting each entity to a response DTO
-            .collect(Collectors.toList());
+    return readCatalog().getFoods();
+}
+
+// Returns the current catalog snapshot, loading it on first use and revalidating it once it is stale
+@Override
+public FoodCatalog readCatalog() {
+    FoodCatalog current = catalog.get();
+    if (current == null) {
+        // First read: every caller has to wait for the initial load
+        catalogLoadLock.lock();
+        try {
+            current = catalog.get();
+            return current != null ? current : loadCatalog();
+        } finally {
+            catalogLoadLock.unlock();
+        }
+    }
+    if (isStale(current) && catalogLoadLock.tryLock()) {
+        // Stale snapshot: one thread reloads while the others keep serving the previous snapshot
+        try {
+            current = catalog.get();
+            if (isStale(current)) {
+                current = loadCatalog();
+            }
+        } finally {
+            catalogLoadLock.unlock();
+        }
+    }
+    return current;
+}
+
+// Searches the catalog by name, description and category, with facet counts
+@Override
+public FoodSearchResponse searchFoods(String query, String category, int limit) {
+    readCatalog(); // Making sure the catalog (and with it the search index) is loaded and fresh
+    return searchIndex.search(query, category, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+}
+
+// Suggests search terms for autocomplete
+@Override
+public List<String> suggestFoods(String prefix, int limit) {
+    readCatalog(); // Making sure the catalog (and with it the search index) is loaded and fresh
+    return searchIndex.suggest(prefix, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+}
+
+// Retrieves one page of food items using keyset pagination, optionally filtered by category and price range
+@Override
+public FoodPageResponse readFoodPage(FoodPageRequest request) {
+    String sortField = request.getSort() == null ? "name" : request.getSort();
+    if (!sortField.equals("name") && !sortField.equals("price")) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be 'name' or 'price'");
+    }
+    String direction = request.getDirection() == null ? "asc" : request.getDirection().toLowerCase();
+    if (!direction.equals("asc") && !direction.equals("desc")) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "direction must be 'asc' or 'desc'");
+    }
+    int limit = request.getLimit() <= 0 ? DEFAULT_PAGE_SIZE : Math.min(request.getLimit(), MAX_PAGE_SIZE);
+
+    // Decoding the keyset position of the previous page, if any
+    Object afterValue = null;
+    String afterId = null;
+    if (request.getCursor() != null && !request.getCursor().isEmpty()) {
+        String[] cursor = decodeCursor(request.getCursor());
+        if (!cursor[0].equals(sortField) || !cursor[1].equals(direction)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sort");
+        }
+        afterId = cursor[2];
+        afterValue = sortField.equals("price") ? parsePrice(cursor[3]) : cursor[3];
+    }
+
+    // Fetching one extra item to know whether another page exists
+    List<FoodEntity> entities = foodRepository.findPage(request.getCategory(), request.getMinPrice(), request.getMaxPrice(),
+            sortField, direction.equals("asc"), afterValue, afterId, limit + 1);
+    boolean hasMore = entities.size() > limit;
+    List<FoodEntity> page = hasMore ? entities.subList(0, limit) : entities;
+
+    String nextCursor = null;
+    if (hasMore) {
+        FoodEntity last = page.get(page.size() - 1);
+        String lastValue = sortField.equals("price") ? Double.toString(last.getPrice()) : Objects.toString(last.getName(), "");
+        nextCursor = encodeCursor(sortField, direction, last.getId(), lastValue);
+    }
+    return FoodPageResponse.builder()
+            .items(page.stream().map(this::convertToResponse).toList())
+            .nextCursor(nextCursor)
+            .build();
 }
 
-// Retrieves a specific food item by its ID
+// Retrieves a specific food item by its ID, served from the catalog snapshot when it is loaded
 @Override
 public FoodResponse readFood(String id) {
+    FoodCatalog current = catalog.get();
+    if (current != null && current.getById().containsKey(id)) {
+        return current.getById().get(id);
+    }
     FoodEntity existingFood = foodRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Food not found for the id: " + id)); // Throwing an exception if not found
     return convertToResponse(existingFood); // Converting the entity to a response DTO
 }
 
-// Deletes a file from AWS S3
+// Looks up many foods at once: from the catalog snapshot, with one batched query for any ids it doesn't have
+@Override
+public Map<String, FoodResponse> readFoodsByIds(Collection<String> ids) {
+    Map<String, FoodResponse> byId = readCatalog().getById();
+    Map<String, FoodResponse> found = new LinkedHashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String id : ids) {
+        FoodResponse food = byId.get(id);
+        if (food != null) {
+            found.put(id, food);
+        } else {
+            missing.add(id);
+        }
+    }
+    if (!missing.isEmpty()) {
+        // Foods added on another node since this snapshot was loaded, or ids that no longer exist
+        foodRepository.findAllById(missing).forEach(entity -> found.put(entity.getId(), convertToResponse(entity)));
+    }
+    return found;
+}
+
+// Deletes a file from the blob store
 @Override
 public boolean deleteFile(String filename) {
-    DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-            .bucket(bucketName)
-            .key(filename)
-            .build();
-    s3Client.deleteObject(deleteObjectRequest); // Deleting the file from S3
+    blobStore.delete(filename); // Deleting the file from S3 or disk
     return true;
 }
 
-// Deletes a food item from the database and its associated image from S3
+// Deletes a food item from the database and its associated image from the blob store
 @Override
 public void deleteFood(String id) {
     FoodResponse response = readFood(id); // Retrieving the food item
     String imageUrl = response.getImageUrl(); // Extracting the image URL
     String filename = imageUrl.substring(imageUrl.lastIndexOf("/") + 1); // Extracting the file name from the URL
-    boolean isFileDeleted = deleteFile(filename); // Deleting the file from S3
+    boolean isFileDeleted = deleteFile(filename); // Deleting the file from the blob store
     if (isFileDeleted) {
         foodRepository.deleteById(response.getId()); // Deleting the food item from the database
+        deleteImageVariants(response.getId(), response.getImageVariants()); // Deleting its thumbnails from the blob store
+        catalogPatchLock.lock();
+        try {
+            catalog.updateAndGet(current -> current == null ? null : current.withoutFood(response.getId())); // Patching the cached catalog
+            searchIndex.remove(response.getId()); // Patching the search index
+        } finally {
+            catalogPatchLock.unlock();
+        }
+    }
+}
+
+// Encodes a keyset position as an opaque, URL-safe cursor
+private static String encodeCursor(String sortField, String direction, String id, String value) {
+    String raw = String.join("\n", sortField, direction, id, value);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+}
+
+// Decodes a cursor into [sortField, direction, id, value], rejecting anything we did not issue
+private static String[] decodeCursor(String cursor) {
+    try {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\n", 4);
+        if (parts.length == 4) {
+            return parts;
+        }
+    } catch (IllegalArgumentException ex) {
+        // Falls through to the error below
+    }
+    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+}
+
+private static Double parsePrice(String value) {
+    try {
+        return Double.valueOf(value);
+    } catch (NumberFormatException ex) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+    }
+}
+
+// Checks whether a snapshot has been served longer than the revalidation interval
+private boolean isStale(FoodCatalog snapshot) {
+    return System.currentTimeMillis() - snapshot.getLoadedAtMillis() > catalogRevalidateMillis;
+}
+
+// Loads all foods from the database into a new snapshot, keeping the previous version when nothing changed.
+// Patches wait while this runs: a food saved before the read is in it, one saved after is patched into the new snapshot
+// and index, so neither the snapshot nor the search index can be replaced by something older than a patch.
+private FoodCatalog loadCatalog() {
+    catalogPatchLock.lock();
+    try {
+        FoodCatalog previous = catalog.get();
+        List<FoodResponse> foods = foodRepository.findAll().stream()
+                .map(this::convertToResponse) // Converting each entity to a response DTO
+                .toList();
+        FoodCatalog loaded = FoodCatalog.of(previous == null ? 1 : previous.getVersion() + 1, foods, catalogWriter);
+        if (previous != null && previous.getEtag().equals(loaded.getEtag())) {
+            loaded = previous.revalidated();
+        }
+        catalog.set(loaded);
+        if (previous == null || loaded.getVersion() != previous.getVersion()) {
+            searchIndex.rebuild(loaded.getFoods()); // Rebuilding the search index only when the content changed
+        }
+        return loaded;
+    } finally {
+        catalogPatchLock.unlock();
     }
 }
 
@@ -142,6 +526,7 @@ private FoodResponse convertToResponse(FoodEntity entity) {
             .category(entity.getCategory())
             .price(entity.getPrice())
             .imageUrl(entity.getImageUrl())
+            .imageVariants(entity.getImageVariants())
             .build();
 }
 }
\ No newline at end of file
@@ -0,0 +1,262 @@
+// The `IdempotencyStore` class runs an operation at most once per idempotency key and replays its response afterwards.
+// Keys live in the TTL-indexed `idempotency_keys` collection, so replays work across nodes and restarts.
+// Duplicates arriving while the first request is still running wait for it: on the same node they share its future,
+// on another node they poll the stored key until the response is there.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.IdempotencyKeyEntity;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+public class IdempotencyStore {
+
+private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+// Printable ASCII without spaces, at most 255 characters
+private static final Pattern KEY = Pattern.compile("[\\x21-\\x7E]{1,255}");
+private static final long POLL_INTERVAL_MS = 100;
+
+private final MongoTemplate mongoTemplate;
+private final ObjectMapper objectMapper;
+// How long a duplicate waits for the first request before giving up with 409
+private final long waitTimeoutMillis;
+// After this long an in-progress key is considered abandoned (e.g. its node died) and may be taken over
+private final long lockTimeoutMillis;
+
+// Requests running on this node, by key id
+private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+private final Executor pollExecutor;
+
+public IdempotencyStore(MongoTemplate mongoTemplate,
+                        ObjectMapper objectMapper,
+                        TaskThreads taskThreads,
+                        @Value("${foodies.idempotency.wait-timeout-ms:15000}") long waitTimeoutMillis,
+                        @Value("${foodies.idempotency.lock-timeout-ms:60000}") long lockTimeoutMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.objectMapper = objectMapper;
+    this.waitTimeoutMillis = waitTimeoutMillis;
+    this.lockTimeoutMillis = lockTimeoutMillis;
+    this.pollExecutor = Executors.newFixedThreadPool(2, taskThreads.factory("idempotency-poll"));
+}
+
+// Runs `operation` for the first request with this key and returns the stored response for every repeat.
+// `scope` separates keys of different users and operations; `request` is hashed to reject a key reused for another request.
+public <T> CompletableFuture<T> execute(String scope, String key, Object request, Class<T> responseType,
+                                        Supplier<CompletableFuture<T>> operation) {
+    return execute(scope, key, request, responseType, operation, response -> true);
+}
+
+// As above, but only responses passing `replayable` are stored; any other outcome (like a failure) releases the key,
+// so a retry runs the operation again instead of getting a degraded response back for the lifetime of the key
+public <T> CompletableFuture<T> execute(String scope, String key, Object request, Class<T> responseType,
+                                        Supplier<CompletableFuture<T>> operation, Predicate<? super T> replayable) {
+    if (!KEY.matcher(key).matches()) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key");
+    }
+    String id = scope + ":" + key;
+    String requestHash = hash(request);
+
+    CompletableFuture<String> mine = new CompletableFuture<>();
+    InFlight running = inFlight.putIfAbsent(id, new InFlight(requestHash, mine));
+    if (running != null) {
+        // Same key already running on this node: share its outcome
+        checkSameRequest(running.requestHash(), requestHash);
+        return running.response().thenApply(json -> read(json, responseType));
+    }
+
+    boolean owner;
+    try {
+        owner = claim(id, requestHash);
+    } catch (RuntimeException ex) {
+        inFlight.remove(id);
+        mine.completeExceptionally(ex);
+        throw ex;
+    }
+    if (!owner) {
+        // Another node owns the key (or it is already done): waiting for its stored response
+        inFlight.remove(id);
+        CompletableFuture<String> stored = awaitStored(id, requestHash, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis), 0);
+        stored.whenComplete((json, error) -> {
+            if (error != null) {
+                mine.completeExceptionally(unwrap(error));
+            } else {
+                mine.complete(json);
+            }
+        });
+        return stored.thenApply(json -> read(json, responseType));
+    }
+
+    return run(id, mine, operation, replayable).thenApply(json -> read(json, responseType));
+}
+
+// Runs the operation as the owner of the key, storing its response or releasing the key when it fails.
+// Failures, 5xx responses included, are never stored: they arrive here as exceptions.
+private <T> CompletableFuture<String> run(String id, CompletableFuture<String> mine, Supplier<CompletableFuture<T>> operation,
+                                          Predicate<? super T> replayable) {
+    CompletableFuture<T> result;
+    try {
+        result = operation.get();
+    } catch (RuntimeException ex) {
+        result = CompletableFuture.failedFuture(ex);
+    }
+    result.whenComplete((response, error) -> {
+        try {
+            if (error != null) {
+                // Nothing to replay; releasing the key so the client can retry
+                release(id);
+                mine.completeExceptionally(unwrap(error));
+                return;
+            }
+            String json = write(response);
+            if (!replayable.test(response)) {
+                // This caller gets the response, but a retry runs the operation again
+                release(id);
+                mine.complete(json);
+                return;
+            }
+            mongoTemplate.updateFirst(new Query(where("id").is(id)),
+                    new Update().set("status", IdempotencyKeyEntity.COMPLETED).set("response", json),
+                    IdempotencyKeyEntity.class);
+            mine.complete(json);
+        } catch (RuntimeException ex) {
+            log.error("Recording the outcome of idempotent request {} failed", id, ex);
+            mine.completeExceptionally(error != null ? error : ex);
+        } finally {
+            inFlight.remove(id);
+        }
+    });
+    return mine;
+}
+
+private void release(String id) {
+    mongoTemplate.remove(new Query(where("id").is(id).and("status").is(IdempotencyKeyEntity.IN_PROGRESS)), IdempotencyKeyEntity.class);
+}
+
+// Records the key as in progress; true when this request owns it and should run the operation
+private boolean claim(String id, String requestHash) {
+    try {
+        mongoTemplate.insert(IdempotencyKeyEntity.builder()
+                .id(id)
+                .requestHash(requestHash)
+                .status(IdempotencyKeyEntity.IN_PROGRESS)
+                .createdAt(Instant.now())
+                .build());
+        return true;
+    } catch (DuplicateKeyException ex) {
+        IdempotencyKeyEntity existing = mongoTemplate.findById(id, IdempotencyKeyEntity.class);
+        return existing != null && takeOver(existing, requestHash);
+    }
+}
+
+// Claims an in-progress key whose owner seems to have died; true when this request now owns it
+private boolean takeOver(IdempotencyKeyEntity existing, String requestHash) {
+    if (!IdempotencyKeyEntity.IN_PROGRESS.equals(existing.getStatus())
+            || existing.getCreatedAt().isAfter(Instant.now().minusMillis(lockTimeoutMillis))) {
+        return false;
+    }
+    checkSameRequest(existing.getRequestHash(), requestHash);
+    IdempotencyKeyEntity claimed = mongoTemplate.findAndModify(
+            new Query(where("id").is(existing.getId())
+                    .and("status").is(IdempotencyKeyEntity.IN_PROGRESS)
+                    .and("createdAt").is(existing.getCreatedAt())),
+            new Update().set("createdAt", Instant.now()),
+            FindAndModifyOptions.options().returnNew(true),
+            IdempotencyKeyEntity.class);
+    if (claimed != null) {
+        log.warn("Taking over abandoned idempotent request {}", existing.getId());
+    }
+    return claimed != null;
+}
+
+// Waits (without holding a thread) until the key owned by another request has a response
+private CompletableFuture<String> awaitStored(String id, String requestHash, long deadlineNanos, long delayMillis) {
+    Executor executor = delayMillis == 0
+            ? pollExecutor
+            : CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, pollExecutor);
+    return CompletableFuture.supplyAsync(() -> mongoTemplate.findById(id, IdempotencyKeyEntity.class), executor)
+            .thenCompose(entry -> {
+                if (entry == null) {
+                    // The owner failed, or got a response not worth replaying, and released the key
+                    return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.CONFLICT, "The original request with this Idempotency-Key did not complete, retry it"));
+                }
+                checkSameRequest(entry.getRequestHash(), requestHash);
+                if (IdempotencyKeyEntity.COMPLETED.equals(entry.getStatus())) {
+                    return CompletableFuture.completedFuture(entry.getResponse());
+                }
+                if (System.nanoTime() > deadlineNanos) {
+                    return CompletableFuture.failedFuture(new ResponseStatusException(HttpStatus.CONFLICT, "Request with this Idempotency-Key is in progress"));
+                }
+                return awaitStored(id, requestHash, deadlineNanos, POLL_INTERVAL_MS);
+            });
+}
+
+private static Throwable unwrap(Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+}
+
+private static void checkSameRequest(String expectedHash, String requestHash) {
+    if (!expectedHash.equals(requestHash)) {
+        throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request");
+    }
+}
+
+private String hash(Object request) {
+    try {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        return HexFormat.of().formatHex(digest);
+    } catch (JsonProcessingException ex) {
+        throw new IllegalStateException("Failed to serialize the request", ex);
+    } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+}
+
+private String write(Object response) {
+    try {
+        return objectMapper.writeValueAsString(response);
+    } catch (JsonProcessingException ex) {
+        throw new IllegalStateException("Failed to serialize the response", ex);
+    }
+}
+
+private <T> T read(String json, Class<T> type) {
+    try {
+        return objectMapper.readValue(json, type);
+    } catch (JsonProcessingException ex) {
+        throw new IllegalStateException("Failed to read the stored response", ex);
+    }
+}
+
+private record InFlight(String requestHash, CompletableFuture<String> response) {
+}
+}
@@ -0,0 +1,203 @@
+// The `ImageDerivativePipeline` class renders the fixed-size variants of an uploaded food image in the background.
+// Each variant is a center-cropped JPEG stored under the SHA-256 of its own bytes, so its URL never changes meaning
+// and it can be served with an immutable, year-long Cache-Control. Rendering runs on a small bounded pool; when the
+// pool is busy the food simply keeps using its original image.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class ImageDerivativePipeline {
+
+// Content-addressed objects never change, so browsers and CDNs may keep them for good
+static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+private final BlobStore blobStore;
+private final Map<String, Size> variants;
+private final float jpegQuality;
+private final long maxSourcePixels;
+private final ThreadPoolExecutor worker;
+
+public ImageDerivativePipeline(BlobStore blobStore,
+                               TaskThreads taskThreads,
+                               @Value("${foodies.images.variants:thumb=160x160,card=480x360}") String variants,
+                               @Value("${foodies.images.jpeg-quality:0.82}") float jpegQuality,
+                               @Value("${foodies.images.max-source-pixels:50000000}") long maxSourcePixels,
+                               @Value("${foodies.images.worker-threads:2}") int workerThreads,
+                               @Value("${foodies.images.queue-size:100}") int queueSize) {
+    this.blobStore = blobStore;
+    this.variants = parseVariants(variants);
+    this.jpegQuality = jpegQuality;
+    this.maxSourcePixels = maxSourcePixels;
+    // Decoding holds a whole bitmap, so the pool size is what bounds the memory this takes
+    this.worker = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize), taskThreads.factory("image-derivatives"));
+    this.worker.allowCoreThreadTimeOut(true);
+}
+
+@PreDestroy
+void stop() {
+    worker.shutdown();
+}
+
+// Renders every variant of the object at sourceKey; completes with variant name -> object key
+public CompletableFuture<Map<String, String>> derive(String sourceKey) {
+    try {
+        return CompletableFuture.supplyAsync(() -> render(sourceKey), worker);
+    } catch (RejectedExecutionException ex) {
+        return CompletableFuture.failedFuture(ex);
+    }
+}
+
+Map<String, String> render(String sourceKey) {
+    BufferedImage source;
+    try (InputStream in = blobStore.open(sourceKey)) {
+        source = decode(in);
+    } catch (IOException ex) {
+        throw new UncheckedIOException("Reading " + sourceKey + " failed", ex);
+    }
+    if (source == null) {
+        // E.g. WebP, which the JDK cannot decode; the original is used as is
+        throw new IllegalStateException("No decoder for " + sourceKey);
+    }
+
+    Map<String, String> keys = new LinkedHashMap<>();
+    for (Map.Entry<String, Size> variant : variants.entrySet()) {
+        byte[] jpeg = encodeJpeg(cover(source, variant.getValue()));
+        String key = sha256(jpeg) + ".jpg";
+        try {
+            blobStore.put(key, "image/jpeg", jpeg.length, IMMUTABLE, new ByteArrayInputStream(jpeg));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Storing " + key + " failed", ex);
+        }
+        keys.put(variant.getKey(), key);
+    }
+    return keys;
+}
+
+// Decodes the image, subsampling large sources while reading so the full-size bitmap is never held
+private BufferedImage decode(InputStream in) throws IOException {
+    try (ImageInputStream stream = new MemoryCacheImageInputStream(in)) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        if (!readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(stream, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            if ((long) width * height > maxSourcePixels) {
+                throw new IllegalArgumentException("Image is " + width + "x" + height + ", too large to render");
+            }
+            // Keeping at least twice the largest variant's resolution, for a clean downscale afterwards
+            int step = Integer.MAX_VALUE;
+            for (Size size : variants.values()) {
+                step = Math.min(step, Math.min(width / (size.width() * 2), height / (size.height() * 2)));
+            }
+            ImageReadParam param = reader.getDefaultReadParam();
+            if (step > 1) {
+                param.setSourceSubsampling(step, step, 0, 0);
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+}
+
+// Scales the image to cover the target size and crops the overflow around the center
+static BufferedImage cover(BufferedImage source, Size size) {
+    double scale = Math.max((double) size.width() / source.getWidth(), (double) size.height() / source.getHeight());
+    int cropWidth = Math.min(source.getWidth(), (int) Math.round(size.width() / scale));
+    int cropHeight = Math.min(source.getHeight(), (int) Math.round(size.height() / scale));
+    int x = (source.getWidth() - cropWidth) / 2;
+    int y = (source.getHeight() - cropHeight) / 2;
+
+    BufferedImage target = new BufferedImage(size.width(), size.height(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = target.createGraphics();
+    try {
+        graphics.setColor(Color.WHITE); // Background for transparent PNGs and GIFs, JPEG has no alpha
+        graphics.fillRect(0, 0, size.width(), size.height());
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(source, 0, 0, size.width(), size.height(), x, y, x + cropWidth, y + cropHeight, null);
+    } finally {
+        graphics.dispose();
+    }
+    return target;
+}
+
+private byte[] encodeJpeg(BufferedImage image) {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 * 1024);
+    try (MemoryCacheImageOutputStream out = new MemoryCacheImageOutputStream(bytes)) {
+        writer.setOutput(out);
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        writer.write(null, new IIOImage(image, null, null), param);
+    } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+    } finally {
+        writer.dispose();
+    }
+    return bytes.toByteArray();
+}
+
+private static String sha256(byte[] bytes) {
+    try {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+}
+
+// Parses "name=WIDTHxHEIGHT,..." keeping the configured order
+static Map<String, Size> parseVariants(String spec) {
+    Map<String, Size> parsed = new LinkedHashMap<>();
+    for (String entry : spec.split(",")) {
+        String[] nameAndSize = entry.trim().split("=");
+        String[] dimensions = nameAndSize[1].trim().toLowerCase().split("x");
+        parsed.put(nameAndSize[0].trim(), new Size(Integer.parseInt(dimensions[0].trim()), Integer.parseInt(dimensions[1].trim())));
+    }
+    return Collections.unmodifiableMap(parsed);
+}
+
+record Size(int width, int height) {
+}
+}
@@ -0,0 +1,186 @@
+// The `LocalBlobStore` class keeps blobs as plain files under one directory, for single-machine setups and load tests
+// without AWS. Files are written to a temporary name and moved into place, so readers never see a partial file.
+// BlobController serves them and accepts the presigned uploads, whose URLs carry an HMAC of key, type, length and expiry.
+// Pending uploads are kept in a `.pending` subdirectory, a name no flat key can have; nothing expires them here, unlike
+// the lifecycle rule on S3.
+package com.example.foodies_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+@Component
+@ConditionalOnProperty(name = "foodies.blobstore", havingValue = "local")
+public class LocalBlobStore implements BlobStore {
+
+// Flat keys only (plus the pending prefix), so a key can never point outside the root directory
+private static final Pattern KEY = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,127}");
+private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "jpg", "image/jpeg",
+        "png", "image/png",
+        "webp", "image/webp",
+        "gif", "image/gif");
+
+private final Path root;
+private final String baseUrl;
+private final SecretKeySpec signingKey;
+
+public LocalBlobStore(@Value("${foodies.blobstore.local.root:./blobs}") String root,
+                      @Value("${foodies.blobstore.local.base-url:http://localhost:8080}") String baseUrl,
+                      @Value("${foodies.blobstore.local.signing-key:}") String signingKey) throws IOException {
+    this.root = Files.createDirectories(Path.of(root)).toAbsolutePath().normalize();
+    this.baseUrl = baseUrl.replaceAll("/+$", "");
+    // Without a configured key, upload URLs are only valid until this node restarts
+    byte[] keyBytes = signingKey.isEmpty() ? new SecureRandom().generateSeed(32) : signingKey.getBytes(StandardCharsets.UTF_8);
+    this.signingKey = new SecretKeySpec(keyBytes, "HmacSHA256");
+}
+
+@Override
+public void put(String key, String contentType, long size, String cacheControl, InputStream in) throws IOException {
+    Path target = path(key);
+    if (target == null) {
+        throw new IllegalArgumentException("Invalid blob key " + key);
+    }
+    Files.createDirectories(target.getParent());
+    Path temp = Files.createTempFile(root, ".upload-", ".tmp");
+    try {
+        long written;
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            written = in.transferTo(out);
+        }
+        if (written != size) {
+            throw new IOException("Expected " + size + " bytes for " + key + ", got " + written);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+        Files.deleteIfExists(temp);
+    }
+}
+
+@Override
+public InputStream open(String key) throws IOException {
+    Path file = path(key);
+    if (file == null) {
+        throw new NoSuchFileException(key);
+    }
+    return Files.newInputStream(file);
+}
+
+@Override
+public BlobInfo stat(String key) {
+    Path file = path(key);
+    if (file == null) {
+        return null;
+    }
+    try {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new BlobInfo(attributes.size(), contentType(key), attributes.lastModifiedTime().toInstant());
+    } catch (NoSuchFileException ex) {
+        return null;
+    } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+    }
+}
+
+@Override
+public void delete(String key) {
+    Path file = path(key);
+    if (file == null) {
+        return;
+    }
+    try {
+        Files.deleteIfExists(file);
+    } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+    }
+}
+
+@Override
+public void move(String fromKey, String toKey) throws IOException {
+    Path source = path(fromKey);
+    Path target = path(toKey);
+    if (source == null || target == null) {
+        throw new IllegalArgumentException("Invalid blob key " + (source == null ? fromKey : toKey));
+    }
+    Files.createDirectories(target.getParent());
+    Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+}
+
+@Override
+public String url(String key) {
+    return baseUrl + "/api/blobs/" + key;
+}
+
+@Override
+public PresignedUpload presignUpload(String key, String contentType, long contentLength, Duration ttl) {
+    long expires = Instant.now().plus(ttl).getEpochSecond();
+    String url = url(key) + "?expires=" + expires + "&signature=" + sign(key, contentType, contentLength, expires);
+    return new PresignedUpload(url,
+            Map.of("Content-Type", List.of(contentType), "Content-Length", List.of(Long.toString(contentLength))),
+            Instant.ofEpochSecond(expires));
+}
+
+// Checks an upload against its presigned URL: unexpired and for exactly this key, type and length
+public boolean verifyUpload(String key, String contentType, long contentLength, long expires, String signature) {
+    if (signature == null || Instant.now().getEpochSecond() > expires) {
+        return false;
+    }
+    byte[] expected = sign(key, contentType, contentLength, expires).getBytes(StandardCharsets.US_ASCII);
+    return MessageDigest.isEqual(expected, signature.getBytes(StandardCharsets.US_ASCII));
+}
+
+// File of a blob, or null when the key is not a valid flat key or pending key
+public Path path(String key) {
+    if (key == null) {
+        return null;
+    }
+    Path dir = root;
+    String name = key;
+    if (key.startsWith(PENDING_PREFIX)) {
+        dir = root.resolve(".pending");
+        name = key.substring(PENDING_PREFIX.length());
+    }
+    if (!KEY.matcher(name).matches()) {
+        return null;
+    }
+    return dir.resolve(name);
+}
+
+public static String contentType(String key) {
+    String extension = key.substring(key.lastIndexOf('.') + 1).toLowerCase();
+    return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+}
+
+private String sign(String key, String contentType, long contentLength, long expires) {
+    try {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(signingKey);
+        String payload = String.join("\n", key, contentType, Long.toString(contentLength), Long.toString(expires));
+        return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    } catch (GeneralSecurityException ex) {
+        throw new IllegalStateException("HmacSHA256 is not available", ex);
+    }
+}
+}
@@ -0,0 +1,100 @@
+package com.example.foodies_backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Default rate limiter: buckets in memory behind lock stripes, so checks for different keys rarely contend
+@Component
+@ConditionalOnProperty(name = "foodies.ratelimit.store", havingValue = "memory", matchIfMissing = true)
+public class LocalRateLimiter implements RateLimiter {
+
+// Number of lock stripes; a power of two
+private static final int STRIPES = 64;
+
+private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+// Buckets by key; each map is only touched while holding its stripe lock
+@SuppressWarnings("unchecked")
+private final Map<String, Bucket>[] buckets = new Map[STRIPES];
+private final int maxKeysPerStripe;
+private final LongSupplier nanoTime;
+
+@Autowired
+public LocalRateLimiter(@Value("${foodies.ratelimit.max-keys:200000}") int maxKeys) {
+    this(maxKeys, System::nanoTime);
+}
+
+// Takes the clock so tests can move time forward instead of sleeping
+LocalRateLimiter(int maxKeys, LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+    this.maxKeysPerStripe = Math.max(16, maxKeys / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+        locks[i] = new ReentrantLock();
+        buckets[i] = new HashMap<>();
+    }
+}
+
+@Override
+public long tryAcquire(String key, int capacity, double refillPerSecond) {
+    int stripe = key.hashCode() & (STRIPES - 1);
+    long now = nanoTime.getAsLong();
+    ReentrantLock lock = locks[stripe];
+    lock.lock();
+    try {
+        Map<String, Bucket> map = buckets[stripe];
+        Bucket bucket = map.get(key);
+        if (bucket == null) {
+            if (map.size() >= maxKeysPerStripe) {
+                evictFull(map, now);
+            }
+            bucket = new Bucket(capacity, refillPerSecond, now);
+            map.put(key, bucket);
+        }
+        bucket.refill(now);
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - bucket.tokens) / refillPerSecond * 1000);
+    } finally {
+        lock.unlock();
+    }
+}
+
+// Drops buckets that have refilled completely, since a new bucket would be the same; if that frees nothing
+// (e.g. a spoofed-IP flood) the stripe starts over rather than growing without bound
+private void evictFull(Map<String, Bucket> map, long now) {
+    map.values().removeIf(bucket -> {
+        bucket.refill(now);
+        return bucket.tokens >= bucket.capacity;
+    });
+    if (map.size() >= maxKeysPerStripe) {
+        map.clear();
+    }
+}
+
+private static final class Bucket {
+    private final int capacity;
+    private final double refillPerSecond;
+    private double tokens;
+    private long refilledAt;
+
+    private Bucket(int capacity, double refillPerSecond, long refilledAt) {
+        this.capacity = capacity;
+        this.refillPerSecond = refillPerSecond;
+        this.tokens = capacity;
+        this.refilledAt = refilledAt;
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) / 1_000_000_000.0 * refillPerSecond);
+        refilledAt = now;
+    }
+}
+}
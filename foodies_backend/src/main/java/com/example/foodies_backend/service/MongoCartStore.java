@@ -0,0 +1,52 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.repository.CartRespository;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Default cart store: every change is one atomic update in MongoDB, so there is nothing to flush
+@Component
+@ConditionalOnProperty(name = "foodies.cart.store", havingValue = "mongo", matchIfMissing = true)
+@AllArgsConstructor
+public class MongoCartStore implements CartStore {
+
+private final CartRespository cartRespository;
+private final MongoTemplate mongoTemplate;
+
+@Override
+public Optional<CartEntity> find(String userId) {
+    return cartRespository.findByUserId(userId);
+}
+
+@Override
+public CartEntity applyChanges(String userId, Map<String, Integer> deltas, Map<String, Integer> quantities, boolean upsert) {
+    return cartRespository.applyChanges(userId, deltas, quantities, upsert);
+}
+
+@Override
+public void delete(String userId) {
+    cartRespository.deleteByUserId(userId);
+}
+
+@Override
+public void deleteAll(Collection<String> userIds) {
+    if (!userIds.isEmpty()) {
+        mongoTemplate.remove(new Query(where("userId").in(userIds)), CartEntity.class);
+    }
+}
+
+@Override
+public void flush(String userId) {
+    // Changes are written immediately
+}
+}
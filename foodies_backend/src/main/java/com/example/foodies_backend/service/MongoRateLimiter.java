@@ -0,0 +1,57 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.entity.RateLimitEntity;
+import lombok.AllArgsConstructor;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Shared rate limiter: each check is one findAndModify with an aggregation pipeline that refills the bucket
+// and takes a token atomically, timed by the database clock so every node agrees
+@Component
+@ConditionalOnProperty(name = "foodies.ratelimit.store", havingValue = "mongo")
+@AllArgsConstructor
+public class MongoRateLimiter implements RateLimiter {
+
+private final MongoTemplate mongoTemplate;
+
+@Override
+public long tryAcquire(String key, int capacity, double refillPerSecond) {
+    Document elapsedSeconds = new Document("$divide", List.of(
+            new Document("$subtract", List.of("$$NOW", new Document("$ifNull", List.of("$updatedAt", "$$NOW")))), 1000));
+    Document refilled = new Document("$min", List.of(capacity, new Document("$add", List.of(
+            new Document("$ifNull", List.of("$tokens", capacity)),
+            new Document("$multiply", List.of(elapsedSeconds, refillPerSecond))))));
+    AggregationOperation refill = context -> new Document("$set", new Document("tokens", refilled));
+    Document hasToken = new Document("$gte", List.of("$tokens", 1));
+    AggregationOperation take = context -> new Document("$set", new Document()
+            .append("allowed", hasToken)
+            .append("tokens", new Document("$cond", List.of(hasToken, new Document("$subtract", List.of("$tokens", 1)), "$tokens")))
+            .append("updatedAt", "$$NOW"));
+
+    Query query = new Query(where("key").is(key));
+    AggregationUpdate update = AggregationUpdate.from(List.of(refill, take));
+    FindAndModifyOptions options = FindAndModifyOptions.options().upsert(true).returnNew(true);
+    RateLimitEntity bucket;
+    try {
+        bucket = mongoTemplate.findAndModify(query, update, options, RateLimitEntity.class);
+    } catch (DuplicateKeyException ex) {
+        // Two first checks raced to create the bucket; apply ours to the one that won
+        bucket = mongoTemplate.findAndModify(query, update, options, RateLimitEntity.class);
+    }
+    if (bucket == null || bucket.isAllowed()) {
+        return 0;
+    }
+    return (long) Math.ceil((1 - bucket.getTokens()) / refillPerSecond * 1000);
+}
+}
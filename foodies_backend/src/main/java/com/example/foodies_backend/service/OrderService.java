@@ -5,12 +5,15 @@ import com.example.foodies_backend.dto.OrderResponse;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface OrderService {
 
-OrderResponse createOrderWithPayment(OrderRequest request);
+CompletableFuture<OrderResponse> createOrderWithPayment(OrderRequest request, String idempotencyKey);
 
-void verifyPayment(Map<String, String> paymentData, String status);
+OrderResponse verifyPayment(Map<String, String> paymentData, String status);
+
+boolean confirmPayment(String reference, long amountInKobo);
 
 List<OrderResponse> getUserOrders();
 
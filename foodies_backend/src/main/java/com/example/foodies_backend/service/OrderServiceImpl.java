@@ -3,25 +3,35 @@ package com.example.foodies_backend.service;
 import com.example.foodies_backend.dto.OrderRequest;
 import com.example.foodies_backend.dto.OrderResponse;
 import com.example.foodies_backend.entity.OrderEntity;
-import com.example.foodies_backend.repository.CartRespository;
 import com.example.foodies_backend.repository.OrderRepository;
 import com.example.foodies_backend.service.OrderService;
 import com.example.foodies_backend.service.UserService;
-import kong.unirest.HttpResponse;
-import kong.unirest.JsonNode;
-import kong.unirest.Unirest;
-import kong.unirest.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
 @Service
 public class OrderServiceImpl implements OrderService {
 
+private static final Logger log = LoggerFactory.getLogger(OrderServiceImpl.class);
+
 @Autowired
 private OrderRepository orderRepository;
 
@@ -29,85 +39,156 @@ private OrderRepository orderRepository;
 private UserService userService;
 
 @Autowired
-private CartRespository cartRespository;
+private CartStore cartStore;
+
+@Autowired
+private PaystackClient paystackClient;
+
+@Autowired
+private MongoTemplate mongoTemplate;
+
+@Autowired
+private IdempotencyStore idempotencyStore;
 
-@Value("${paystack.secret.key}")
-private String PAYSTACK_SECRET_KEY;
+// Payment references with a background verification running on this node
+private final Set<String> verificationsInFlight = ConcurrentHashMap.newKeySet();
 
 @Override
-public OrderResponse createOrderWithPayment(OrderRequest request) {
+public CompletableFuture<OrderResponse> createOrderWithPayment(OrderRequest request, String idempotencyKey) {
+    String loggedInUserId = userService.findByUserId();
+    if (idempotencyKey == null) {
+        return createOrder(request, loggedInUserId);
+    }
+    // A retried request with the same key gets the first response back instead of a second order and transaction;
+    // only a response the customer can pay with is kept for replay
+    return idempotencyStore.execute("order-create:" + loggedInUserId, idempotencyKey, request, OrderResponse.class,
+            () -> createOrder(request, loggedInUserId),
+            response -> response.getAuthorizationUrl() != null);
+}
+
+private CompletableFuture<OrderResponse> createOrder(OrderRequest request, String loggedInUserId) {
+    // Writing buffered cart changes before the order exists: MongoDB then holds the cart being checked out, and a late
+    // write-behind flush cannot put it back after the payment has cleared it
+    cartStore.flush(loggedInUserId);
+
     // Convert and set user
     OrderEntity newOrder = convertToEntity(request);
-    String loggedInUserId = userService.findByUserId();
     newOrder.setUserId(loggedInUserId);
 
     // Save with userId immediately
-    newOrder = orderRepository.save(newOrder);
+    OrderEntity savedOrder = orderRepository.save(newOrder);
 
     // Defensive checks
-    if (newOrder.getEmail() == null || newOrder.getEmail().isEmpty()) {
+    if (savedOrder.getEmail() == null || savedOrder.getEmail().isEmpty()) {
         throw new RuntimeException("Order email is missing — cannot initialize payment");
     }
 
-    if (newOrder.getAmount() <= 0) {
+    if (savedOrder.getAmount() <= 0) {
         throw new RuntimeException("Invalid order amount — cannot initialize payment");
     }
 
+    // The request thread is released here; the rest runs once Paystack has answered
+    return paystackClient.initializeTransaction(savedOrder.getEmail(), Math.round(savedOrder.getAmount() * 100)) // convert to kobo
+            .thenApply(initialization -> {
+                savedOrder.setPaymentReference(initialization.reference());
+                OrderResponse orderResponse = convertToResponse(orderRepository.save(savedOrder));
+                orderResponse.setAuthorizationUrl(initialization.authorizationUrl());
+                return orderResponse;
+            })
+            .exceptionally(error -> {
+                Throwable cause = PaystackClient.unwrap(error);
+                // Without a transaction the customer has no way to pay, so the order is closed and the checkout fails;
+                // a retry places a new order (the reconciler closes any order this update misses)
+                failUninitializedOrder(savedOrder.getId());
+                if (cause instanceof PaystackClient.PaystackUnavailableException) {
+                    log.warn("Paystack unavailable, checkout of order {} failed: {}", savedOrder.getId(), cause.getMessage());
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payments are unavailable right now, try again shortly", cause);
+                }
+                log.error("Paystack initialization failed for order {}: {}", savedOrder.getId(), cause.getMessage());
+                throw new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Payment initialization failed with Paystack", cause);
+            });
+}
+
+// Marks an order whose transaction could not be started as failed, unless a reference was attached after all
+private void failUninitializedOrder(String orderId) {
     try {
-        HttpResponse<JsonNode> response = Unirest.post("https://api.paystack.co/transaction/initialize")
-                .header("Authorization", "Bearer " + PAYSTACK_SECRET_KEY)
-                .header("Content-Type", "application/json")
-                .body(new JSONObject()
-                        .put("email", newOrder.getEmail())
-                        .put("amount", (int) (newOrder.getAmount() * 100))) // convert to kobo
-                .asJson();
-
-        System.out.println("Paystack response: " + response.getBody());
-
-        if (response.getStatus() == 200 && response.getBody().getObject().getBoolean("status")) {
-            JSONObject data = response.getBody().getObject().getJSONObject("data");
-            String authorizationUrl = data.getString("authorization_url");
-            String reference = data.getString("reference");
-
-            newOrder.setPaymentReference(reference);
-            newOrder = orderRepository.save(newOrder);
-
-            OrderResponse orderResponse = convertToResponse(newOrder);
-            orderResponse.setAuthorizationUrl(authorizationUrl);
-            return orderResponse;
-        } else {
-            System.err.println("Paystack error response: " + response.getBody());
-            throw new RuntimeException("Payment initialization failed with Paystack: " + response.getBody());
-        }
-    } catch (Exception e) {
-        System.err.println("Exception during Paystack initialization: " + e.getMessage());
-        throw new RuntimeException("Payment initialization failed with Paystack", e);
+        mongoTemplate.updateFirst(
+                new Query(where("id").is(orderId).and("paymentReference").exists(false)),
+                new Update().set("paymentStatus", "failed"),
+                OrderEntity.class);
+    } catch (RuntimeException ex) {
+        log.warn("Could not mark order {} as failed: {}", orderId, ex.getMessage());
     }
 }
 
-
-
+// Returns the payment state of an order; confirmation normally arrives through the Paystack webhook
 @Override
-public void verifyPayment(Map<String, String> paymentData, String status) {
+public OrderResponse verifyPayment(Map<String, String> paymentData, String status) {
     String reference = paymentData.get("reference");
+    if (reference == null || reference.isEmpty()) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "reference is required");
+    }
     OrderEntity existingOrder = orderRepository.findByPaymentReference(reference)
-            .orElseThrow(() -> new RuntimeException("Order not found"));
+            .filter(order -> order.getUserId().equals(userService.findByUserId()))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Order not found"));
 
-    // Verify transaction with Paystack
-    HttpResponse<JsonNode> response = Unirest.get("https://api.paystack.co/transaction/verify/" + reference)
-            .header("Authorization", "Bearer " + PAYSTACK_SECRET_KEY)
-            .asJson();
+    if (!"paid".equals(existingOrder.getPaymentStatus())) {
+        // The webhook may be late or lost, so a check with Paystack is started in the background
+        verifyInBackground(reference);
+    }
+    return convertToResponse(existingOrder);
+}
+
+// Marks the order of a successful payment as paid and clears the user's cart; returns false if it was already paid
+@Override
+public boolean confirmPayment(String reference, long amountInKobo) {
+    OrderEntity order = orderRepository.findByPaymentReference(reference)
+            .orElseThrow(() -> new RuntimeException("No order for payment reference " + reference));
+    if (Math.round(order.getAmount() * 100) != amountInKobo) {
+        throw new RuntimeException("Paid amount " + amountInKobo + " does not match the order amount for " + reference);
+    }
 
-    if (response.getStatus() == 200 &&
-            response.getBody().getObject().getJSONObject("data").getString("status").equalsIgnoreCase("success")) {
+    // Conditional update, so the webhook and a background verification can't both confirm the same payment
+    OrderEntity updated = mongoTemplate.findAndModify(
+            new Query(where("paymentReference").is(reference).and("paymentStatus").ne("paid")),
+            new Update().set("paymentStatus", "paid").set("orderStatus", "preparing"),
+            FindAndModifyOptions.options().returnNew(true),
+            OrderEntity.class);
+    if (updated == null) {
+        return false;
+    }
+    cartStore.delete(updated.getUserId());
+    return true;
+}
 
-        existingOrder.setPaymentStatus("paid");
-        existingOrder.setOrderStatus("preparing");
-        orderRepository.save(existingOrder);
-        cartRespository.deleteByUserId(existingOrder.getUserId());
-    } else {
-        throw new RuntimeException("Payment verification failed or payment was not successful");
+// Verifies a payment with Paystack without holding up the caller; one check per reference at a time
+private void verifyInBackground(String reference) {
+    if (!verificationsInFlight.add(reference)) {
+        return;
     }
+    paystackClient.verifyTransaction(reference)
+            .thenAccept(verification -> {
+                if (verification.successful()) {
+                    confirmPayment(reference, verification.amountInKobo());
+                }
+            })
+            .whenComplete((ignored, error) -> {
+                verificationsInFlight.remove(reference);
+                if (error == null) {
+                    return;
+                }
+                Throwable cause = PaystackClient.unwrap(error);
+                if (cause instanceof PaystackClient.PaystackUnavailableException) {
+                    // Fallback: the outcome is unknown, so the payment is marked pending until it can be checked again
+                    log.warn("Paystack unavailable, payment {} left pending: {}", reference, cause.getMessage());
+                    mongoTemplate.updateFirst(
+                            new Query(where("paymentReference").is(reference).and("paymentStatus").ne("paid")),
+                            new Update().set("paymentStatus", "pending"),
+                            OrderEntity.class);
+                } else {
+                    log.warn("Background verification of payment {} failed: {}", reference, cause.getMessage());
+                }
+            });
 }
 
 @Override
@@ -160,6 +241,7 @@ private OrderEntity convertToEntity(OrderRequest request) {
             .email(request.getEmail())
             .phoneNumber(request.getPhoneNumber())
             .orderStatus(request.getOrderStatus())
+            .createdAt(Instant.now())
             .build();
 }
 }
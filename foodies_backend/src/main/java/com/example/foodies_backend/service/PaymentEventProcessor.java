@@ -0,0 +1,216 @@
+// The `PaymentEventProcessor` class records signed Paystack webhook events in the payment event ledger and confirms
+// the matching orders in the background. Recording is insert-once per payment reference, so repeated deliveries are harmless.
+// A periodic sweep picks up events that were never processed (full queue, failure, or a restart in between).
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.PaymentEventEntity;
+import com.example.foodies_backend.repository.PaymentEventRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+public class PaymentEventProcessor {
+
+private static final Logger log = LoggerFactory.getLogger(PaymentEventProcessor.class);
+
+// The only event that confirms a payment
+private static final String CHARGE_SUCCESS = "charge.success";
+private static final int SWEEP_BATCH = 100;
+
+private final PaymentEventRepository paymentEventRepository;
+private final MongoTemplate mongoTemplate;
+private final OrderService orderService;
+private final ObjectMapper objectMapper;
+private final SecretKeySpec signingKey;
+private final long sweepIntervalMillis;
+private final long claimTimeoutMillis;
+private final int maxAttempts;
+
+// Background workers; when the queue is full the event simply waits for the next sweep
+private final ThreadPoolExecutor worker;
+private final ScheduledExecutorService sweeper;
+
+public PaymentEventProcessor(PaymentEventRepository paymentEventRepository,
+                             MongoTemplate mongoTemplate,
+                             OrderService orderService,
+                             ObjectMapper objectMapper,
+                             TaskThreads taskThreads,
+                             @Value("${paystack.secret.key}") String secretKey,
+                             @Value("${paystack.webhook.worker-threads:2}") int workerThreads,
+                             @Value("${paystack.webhook.sweep-interval-ms:60000}") long sweepIntervalMillis,
+                             @Value("${paystack.webhook.claim-timeout-ms:120000}") long claimTimeoutMillis,
+                             @Value("${paystack.webhook.max-attempts:10}") int maxAttempts) {
+    this.paymentEventRepository = paymentEventRepository;
+    this.mongoTemplate = mongoTemplate;
+    this.orderService = orderService;
+    this.objectMapper = objectMapper;
+    this.signingKey = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
+    this.sweepIntervalMillis = sweepIntervalMillis;
+    this.claimTimeoutMillis = claimTimeoutMillis;
+    this.maxAttempts = maxAttempts;
+    this.worker = new ThreadPoolExecutor(workerThreads, workerThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1000), taskThreads.factory("payment-event-worker"));
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(taskThreads.factory("payment-event-sweeper"));
+}
+
+@PostConstruct
+void start() {
+    sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+}
+
+@PreDestroy
+void stop() {
+    sweeper.shutdown();
+    worker.shutdown();
+}
+
+// Checks the x-paystack-signature header: the hex HMAC-SHA512 of the raw body, keyed with the secret key
+public boolean verifySignature(byte[] body, String signature) {
+    if (signature == null || signature.isEmpty()) {
+        return false;
+    }
+    try {
+        Mac mac = Mac.getInstance("HmacSHA512");
+        mac.init(signingKey);
+        byte[] expected = HexFormat.of().formatHex(mac.doFinal(body)).getBytes(StandardCharsets.US_ASCII);
+        // Constant-time comparison, so the signature can't be guessed byte by byte
+        return MessageDigest.isEqual(expected, signature.toLowerCase().getBytes(StandardCharsets.US_ASCII));
+    } catch (GeneralSecurityException ex) {
+        throw new IllegalStateException("HmacSHA512 is not available", ex);
+    }
+}
+
+// Records a verified event in the ledger and queues it; the webhook is answered without waiting for processing
+public void receive(byte[] body) {
+    JsonNode root;
+    try {
+        root = objectMapper.readTree(body);
+    } catch (IOException ex) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed event");
+    }
+    String event = root.path("event").asText();
+    JsonNode data = root.path("data");
+    String reference = data.path("reference").asText(null);
+    if (!CHARGE_SUCCESS.equals(event) || reference == null || reference.isEmpty()) {
+        log.debug("Ignoring Paystack event {}", event);
+        return;
+    }
+
+    PaymentEventEntity entry = PaymentEventEntity.builder()
+            .reference(reference)
+            .event(event)
+            .transactionStatus(data.path("status").asText())
+            .amountInKobo(data.path("amount").asLong())
+            .payload(new String(body, StandardCharsets.UTF_8))
+            .status(PaymentEventEntity.RECEIVED)
+            .receivedAt(Instant.now())
+            .build();
+    try {
+        paymentEventRepository.insert(entry);
+    } catch (DuplicateKeyException ex) {
+        // Paystack redelivers until it gets a 2xx; the first delivery is the one that counts
+        log.debug("Payment event {} already recorded", reference);
+        return;
+    }
+    submit(reference);
+}
+
+private void submit(String reference) {
+    try {
+        worker.execute(() -> process(reference));
+    } catch (RejectedExecutionException ex) {
+        log.warn("Payment event queue is full, {} waits for the next sweep", reference);
+    }
+}
+
+// Confirms the order of one event; the claim makes sure only one worker (on any node) handles it at a time
+void process(String reference) {
+    PaymentEventEntity event = claim(reference);
+    if (event == null) {
+        return;
+    }
+    try {
+        if (!"success".equalsIgnoreCase(event.getTransactionStatus())) {
+            finish(reference, PaymentEventEntity.PROCESSED, "Transaction status is " + event.getTransactionStatus());
+            return;
+        }
+        boolean confirmed = orderService.confirmPayment(reference, event.getAmountInKobo());
+        log.info("Payment {} {}", reference, confirmed ? "confirmed" : "was already confirmed");
+        finish(reference, PaymentEventEntity.PROCESSED, null);
+    } catch (RuntimeException ex) {
+        // E.g. the order's reference is not saved yet; the sweep retries until maxAttempts
+        boolean giveUp = event.getAttempts() >= maxAttempts;
+        log.warn("Processing payment event {} failed (attempt {}): {}", reference, event.getAttempts(), ex.getMessage());
+        finish(reference, giveUp ? PaymentEventEntity.FAILED : PaymentEventEntity.RECEIVED, ex.getMessage());
+    }
+}
+
+private PaymentEventEntity claim(String reference) {
+    Instant now = Instant.now();
+    Query query = new Query(where("reference").is(reference).orOperator(
+            where("status").is(PaymentEventEntity.RECEIVED),
+            where("status").is(PaymentEventEntity.PROCESSING).and("claimedAt").lt(now.minusMillis(claimTimeoutMillis))));
+    Update update = new Update()
+            .set("status", PaymentEventEntity.PROCESSING)
+            .set("claimedAt", now)
+            .inc("attempts", 1);
+    return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), PaymentEventEntity.class);
+}
+
+private void finish(String reference, String status, String error) {
+    Update update = new Update().set("status", status).set("lastError", error);
+    if (PaymentEventEntity.PROCESSED.equals(status)) {
+        update.set("processedAt", Instant.now());
+    }
+    mongoTemplate.updateFirst(new Query(where("reference").is(reference)), update, PaymentEventEntity.class);
+}
+
+// Re-queues events that are waiting, or whose worker died while holding the claim
+void sweep() {
+    try {
+        Instant cutoff = Instant.now().minusMillis(claimTimeoutMillis);
+        Query query = new Query(new Criteria().orOperator(
+                where("status").is(PaymentEventEntity.RECEIVED),
+                where("status").is(PaymentEventEntity.PROCESSING).and("claimedAt").lt(cutoff)))
+                .limit(SWEEP_BATCH);
+        query.fields().include("reference");
+        for (PaymentEventEntity event : mongoTemplate.find(query, PaymentEventEntity.class)) {
+            submit(event.getReference());
+        }
+    } catch (RuntimeException ex) {
+        log.error("Sweeping payment events failed", ex);
+    }
+}
+}
@@ -0,0 +1,227 @@
+// The `PaymentReconciler` class settles orders whose payment was never confirmed (no webhook, no /verify).
+// On a schedule it lists the recent transactions from Paystack in pages, walks the unpaid orders in pages,
+// and applies the failed transitions of each page with one bulk write. Paid transitions are rare (the webhook normally
+// gets there first) and each one is a conditional update of its own, so only a cart whose order this job paid is cleared.
+// Unpaid orders that never got a payment reference are closed as failed.
+// Updates are conditional on the order still being unpaid, so running it on several nodes is safe.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.entity.OrderEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+public class PaymentReconciler {
+
+private static final Logger log = LoggerFactory.getLogger(PaymentReconciler.class);
+
+// Paystack transaction states that will not turn into a successful payment any more
+private static final Set<String> FINAL_FAILURES = Set.of("failed", "reversed");
+// States of a checkout that was started but not (yet) completed
+private static final Set<String> UNFINISHED = Set.of("abandoned", "ongoing", "pending", "processing", "queued");
+
+private final PaystackClient paystackClient;
+private final MongoTemplate mongoTemplate;
+private final CartStore cartStore;
+private final int pageSize;
+private final int maxListingPages;
+private final Duration minAge;
+private final Duration staleAfter;
+private final Duration lookback;
+
+// Orders settled by this job (paid or failed)
+private final Counter reconciled;
+// Orders paid with an amount that doesn't match the order, as of the last run; left for a human to look at
+private final AtomicInteger mismatched = new AtomicInteger();
+// Orders still unsettled long after checkout, as of the last run
+private final AtomicInteger stale = new AtomicInteger();
+// Orders closed because their transaction was never started, so they could never be paid
+private final Counter uninitialized;
+
+public PaymentReconciler(PaystackClient paystackClient,
+                         MongoTemplate mongoTemplate,
+                         CartStore cartStore,
+                         MeterRegistry meterRegistry,
+                         @Value("${paystack.reconcile.page-size:200}") int pageSize,
+                         @Value("${paystack.reconcile.max-listing-pages:50}") int maxListingPages,
+                         @Value("${paystack.reconcile.min-age-ms:600000}") long minAgeMillis,
+                         @Value("${paystack.reconcile.stale-after-ms:86400000}") long staleAfterMillis,
+                         @Value("${paystack.reconcile.lookback-days:7}") int lookbackDays) {
+    this.paystackClient = paystackClient;
+    this.mongoTemplate = mongoTemplate;
+    this.cartStore = cartStore;
+    this.pageSize = pageSize;
+    this.maxListingPages = maxListingPages;
+    this.minAge = Duration.ofMillis(minAgeMillis);
+    this.staleAfter = Duration.ofMillis(staleAfterMillis);
+    this.lookback = Duration.ofDays(lookbackDays);
+    this.reconciled = Counter.builder("foodies.payments.reconciled")
+            .description("Orders settled by the reconciliation job")
+            .register(meterRegistry);
+    // Gauges rather than counters: the same orders are seen again on every run until someone settles them
+    Gauge.builder("foodies.payments.mismatched", mismatched, AtomicInteger::get)
+            .description("Orders whose paid amount does not match")
+            .register(meterRegistry);
+    Gauge.builder("foodies.payments.stale", stale, AtomicInteger::get)
+            .description("Orders still unsettled after the stale threshold")
+            .register(meterRegistry);
+    this.uninitialized = Counter.builder("foodies.payments.uninitialized")
+            .description("Unpaid orders without a payment reference, closed as failed")
+            .register(meterRegistry);
+}
+
+@Scheduled(fixedDelayString = "${paystack.reconcile.interval-ms:300000}", initialDelayString = "${paystack.reconcile.initial-delay-ms:60000}")
+public void reconcile() {
+    try {
+        Instant now = Instant.now();
+        // Needs nothing from Paystack, so it runs even when the listing below fails
+        int closed = closeUninitialized(now.minus(minAge));
+        if (closed > 0) {
+            log.warn("Payment reconciliation closed {} orders whose payment was never started", closed);
+        }
+        Map<String, PaystackClient.Verification> transactions = listTransactions(now.minus(lookback), now);
+        Tally tally = new Tally();
+        String lastId = null;
+        List<OrderEntity> page;
+        do {
+            page = nextUnpaidPage(now.minus(minAge), lastId);
+            if (!page.isEmpty()) {
+                settle(page, transactions, now, tally);
+                lastId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+        mismatched.set(tally.mismatched);
+        stale.set(tally.stale);
+        if (tally.settled > 0) {
+            log.info("Payment reconciliation settled {} orders", tally.settled);
+        }
+    } catch (RuntimeException ex) {
+        log.error("Payment reconciliation failed", ex);
+    }
+}
+
+// Fetches the transaction listing once per run, keyed by reference
+private Map<String, PaystackClient.Verification> listTransactions(Instant from, Instant to) {
+    Map<String, PaystackClient.Verification> byReference = new HashMap<>();
+    int page = 1;
+    PaystackClient.TransactionPage result;
+    do {
+        result = paystackClient.listTransactions(from, to, page, 100).join();
+        for (PaystackClient.Verification transaction : result.transactions()) {
+            byReference.put(transaction.reference(), transaction);
+        }
+        page++;
+    } while (result.hasNext() && page <= maxListingPages);
+    if (result.hasNext()) {
+        log.warn("Transaction listing truncated after {} pages", maxListingPages);
+    }
+    return byReference;
+}
+
+// Unpaid orders without a payment reference: checkout failed before Paystack gave one (or the order predates the
+// checkout failing in that case). Their customer was never sent to pay, so nothing can settle them; they are closed.
+private int closeUninitialized(Instant placedBefore) {
+    Query query = new Query(where("paymentStatus").nin("paid", "failed")
+            .and("paymentReference").is(null)
+            .orOperator(where("createdAt").lt(placedBefore), where("createdAt").exists(false)));
+    long modified = mongoTemplate.updateMulti(query, new Update().set("paymentStatus", "failed"), OrderEntity.class).getModifiedCount();
+    uninitialized.increment(modified);
+    return (int) modified;
+}
+
+// Unpaid orders with a payment reference, old enough that the webhook should have arrived, in _id order
+private List<OrderEntity> nextUnpaidPage(Instant placedBefore, String afterId) {
+    Criteria criteria = where("paymentStatus").nin("paid", "failed")
+            .and("paymentReference").ne(null)
+            .orOperator(where("createdAt").lt(placedBefore), where("createdAt").exists(false));
+    if (afterId != null) {
+        criteria = new Criteria().andOperator(criteria, where("id").gt(afterId));
+    }
+    Query query = new Query(criteria)
+            .with(Sort.by(Sort.Direction.ASC, "id"))
+            .limit(pageSize);
+    query.fields().include("userId", "amount", "paymentReference", "paymentStatus", "createdAt");
+    return mongoTemplate.find(query, OrderEntity.class);
+}
+
+// Applies the transitions for one page of orders, adding what it did and saw to the run's tally
+private void settle(List<OrderEntity> orders, Map<String, PaystackClient.Verification> transactions, Instant now, Tally tally) {
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OrderEntity.class);
+    List<String> paidUsers = new ArrayList<>();
+    int settled = 0;
+    int failures = 0;
+    for (OrderEntity order : orders) {
+        PaystackClient.Verification transaction = transactions.get(order.getPaymentReference());
+        boolean isStale = order.getCreatedAt() == null || order.getCreatedAt().isBefore(now.minus(staleAfter));
+        if (transaction != null && transaction.successful()) {
+            if (Math.round(order.getAmount() * 100) == transaction.amountInKobo()) {
+                // The webhook may have paid it since the page was read; then its cart may already be a new one
+                if (markPaid(order.getId())) {
+                    paidUsers.add(order.getUserId());
+                    settled++;
+                }
+            } else {
+                tally.mismatched++;
+                log.warn("Order {} was paid {} kobo, expected {}", order.getId(), transaction.amountInKobo(), Math.round(order.getAmount() * 100));
+            }
+        } else if (transaction != null && FINAL_FAILURES.contains(transaction.status())) {
+            bulk.updateOne(unpaid(order.getId()), new Update().set("paymentStatus", "failed"));
+            failures++;
+        } else if (isStale) {
+            // An unfinished checkout this old won't be completed; one missing from the listing is left alone
+            if (transaction != null && UNFINISHED.contains(transaction.status())) {
+                bulk.updateOne(unpaid(order.getId()), new Update().set("paymentStatus", "failed"));
+                failures++;
+            } else {
+                tally.stale++;
+            }
+        }
+    }
+    // Those orders are paid already, whatever happens to the bulk write
+    cartStore.deleteAll(paidUsers);
+    if (failures > 0) {
+        settled += bulk.execute().getModifiedCount();
+    }
+    reconciled.increment(settled);
+    tally.settled += settled;
+}
+
+private boolean markPaid(String orderId) {
+    Update update = new Update().set("paymentStatus", "paid").set("orderStatus", "preparing");
+    return mongoTemplate.updateFirst(unpaid(orderId), update, OrderEntity.class).getModifiedCount() > 0;
+}
+
+private static Query unpaid(String orderId) {
+    return new Query(where("id").is(orderId).and("paymentStatus").ne("paid"));
+}
+
+// What one run did and saw, summed over its pages
+private static final class Tally {
+    private int settled;
+    private int mismatched;
+    private int stale;
+}
+}
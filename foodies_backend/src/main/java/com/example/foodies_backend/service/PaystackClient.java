@@ -0,0 +1,268 @@
+// The `PaystackClient` class is the single place the application talks to the Paystack API.
+// Calls are asynchronous over a bounded connection pool, every call has a deadline, idempotent calls are retried
+// with jittered backoff, and a circuit breaker fails calls fast while Paystack is down.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import jakarta.annotation.PreDestroy;
+import kong.unirest.HttpResponse;
+import kong.unirest.JsonNode;
+import kong.unirest.Unirest;
+import kong.unirest.UnirestInstance;
+import kong.unirest.json.JSONArray;
+import kong.unirest.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class PaystackClient {
+
+private static final Logger log = LoggerFactory.getLogger(PaystackClient.class);
+
+// Dedicated HTTP client with its own pool, so Paystack can never take connections from anything else
+private final UnirestInstance unirest;
+// Responses are handled here rather than on the HTTP client's I/O threads, since callers continue with blocking work
+private final ThreadPoolExecutor callbackExecutor;
+private final CircuitBreaker breaker;
+private final long callTimeoutMillis;
+private final int maxAttempts;
+private final long retryBaseDelayMillis;
+
+public PaystackClient(TaskThreads taskThreads,
+                      @Value("${paystack.secret.key}") String secretKey,
+                      @Value("${paystack.base-url:https://api.paystack.co}") String baseUrl,
+                      @Value("${paystack.connect-timeout-ms:2000}") int connectTimeoutMillis,
+                      @Value("${paystack.call-timeout-ms:5000}") long callTimeoutMillis,
+                      @Value("${paystack.max-connections:50}") int maxConnections,
+                      @Value("${paystack.callback-threads:8}") int callbackThreads,
+                      @Value("${paystack.callback-queue-size:1000}") int callbackQueueSize,
+                      @Value("${paystack.retry.max-attempts:3}") int maxAttempts,
+                      @Value("${paystack.retry.base-delay-ms:200}") long retryBaseDelayMillis,
+                      @Value("${paystack.breaker.failure-threshold:5}") int failureThreshold,
+                      @Value("${paystack.breaker.open-ms:30000}") long breakerOpenMillis) {
+    this.callTimeoutMillis = callTimeoutMillis;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.retryBaseDelayMillis = Math.max(1, retryBaseDelayMillis);
+    this.breaker = new CircuitBreaker("paystack", failureThreshold, breakerOpenMillis);
+
+    this.unirest = Unirest.spawnInstance();
+    unirest.config()
+            .defaultBaseUrl(baseUrl)
+            .connectTimeout(connectTimeoutMillis)
+            .socketTimeout((int) callTimeoutMillis)
+            .concurrency(maxConnections, maxConnections)
+            .automaticRetries(false) // Retries are decided here, only for calls that are safe to repeat
+            .setDefaultHeader("Authorization", "Bearer " + secretKey);
+
+    this.callbackExecutor = new ThreadPoolExecutor(callbackThreads, callbackThreads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(callbackQueueSize), taskThreads.factory("paystack"));
+}
+
+@PreDestroy
+public void shutdown() {
+    unirest.shutDown();
+    callbackExecutor.shutdown();
+}
+
+// Starts a transaction and returns the checkout URL; not retried, since a repeat would start a second transaction
+public CompletableFuture<Initialization> initializeTransaction(String email, long amountInKobo) {
+    return call("initialize", 1,
+            () -> unirest.post("/transaction/initialize")
+                    .header("Content-Type", "application/json")
+                    .body(new JSONObject()
+                            .put("email", email)
+                            .put("amount", amountInKobo))
+                    .asJsonAsync(),
+            body -> {
+                JSONObject data = body.getJSONObject("data");
+                return new Initialization(data.getString("authorization_url"), data.getString("reference"));
+            });
+}
+
+// Looks up the state of a transaction; a read, so it is retried on timeouts and server errors
+public CompletableFuture<Verification> verifyTransaction(String reference) {
+    return call("verify", maxAttempts,
+            () -> unirest.get("/transaction/verify/{reference}")
+                    .routeParam("reference", reference)
+                    .asJsonAsync(),
+            body -> {
+                JSONObject data = body.getJSONObject("data");
+                return new Verification(data.optString("reference", reference), data.optString("status"), data.optLong("amount"));
+            });
+}
+
+// Lists the transactions created in a time window, one page at a time; a read, so it is retried like verify
+public CompletableFuture<TransactionPage> listTransactions(Instant from, Instant to, int page, int perPage) {
+    return call("list", maxAttempts,
+            () -> unirest.get("/transaction")
+                    .queryString("from", from.toString())
+                    .queryString("to", to.toString())
+                    .queryString("page", page)
+                    .queryString("perPage", perPage)
+                    .asJsonAsync(),
+            body -> {
+                JSONArray data = body.getJSONArray("data");
+                List<Verification> transactions = new ArrayList<>(data.length());
+                for (int i = 0; i < data.length(); i++) {
+                    JSONObject transaction = data.getJSONObject(i);
+                    transactions.add(new Verification(transaction.optString("reference"), transaction.optString("status"), transaction.optLong("amount")));
+                }
+                JSONObject meta = body.optJSONObject("meta");
+                int pageCount = meta == null ? page : meta.optInt("pageCount", page);
+                return new TransactionPage(transactions, page, pageCount);
+            });
+}
+
+CircuitBreaker.State circuitState() {
+    return breaker.state();
+}
+
+private <T> CompletableFuture<T> call(String operation, int attempts,
+                                      Supplier<CompletableFuture<HttpResponse<JsonNode>>> request,
+                                      Function<JSONObject, T> parser) {
+    return attempt(operation, attempts, 1, request, parser);
+}
+
+private <T> CompletableFuture<T> attempt(String operation, int attempts, int attempt,
+                                         Supplier<CompletableFuture<HttpResponse<JsonNode>>> request,
+                                         Function<JSONObject, T> parser) {
+    if (!breaker.tryAcquire()) {
+        return CompletableFuture.failedFuture(new PaystackUnavailableException("Paystack " + operation + " rejected: circuit is open", null));
+    }
+    CompletableFuture<HttpResponse<JsonNode>> pending;
+    try {
+        pending = request.get();
+    } catch (RuntimeException ex) {
+        breaker.onFailure();
+        return CompletableFuture.failedFuture(new PaystackUnavailableException("Paystack " + operation + " could not be sent", ex));
+    }
+
+    // Completed by hand rather than with handleAsync: a full callback queue must fail the call, not leave it hanging
+    CompletableFuture<T> result = new CompletableFuture<>();
+    pending.orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+        try {
+            callbackExecutor.execute(() -> {
+                try {
+                    result.complete(handle(operation, response, error, parser));
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Every permitted call must report back to the breaker; a half-open trial that never did would keep
+            // the circuit from ever closing again
+            breaker.onFailure();
+            result.completeExceptionally(new PaystackUnavailableException("Paystack " + operation + " response dropped: callback queue is full", ex));
+        }
+    });
+
+    return result.exceptionallyCompose(error -> {
+        Throwable cause = unwrap(error);
+        if (!(cause instanceof PaystackUnavailableException) || attempt >= attempts) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        long delay = backoff(attempt);
+        log.warn("Paystack {} failed (attempt {}/{}), retrying in {} ms: {}", operation, attempt, attempts, delay, cause.getMessage());
+        // Only sends the next request, which doesn't block, so it needn't (and mustn't be refused by) the callback pool
+        Executor delayed = CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> null, delayed)
+                .thenCompose(ignored -> attempt(operation, attempts, attempt + 1, request, parser));
+    });
+}
+
+// Turns one HTTP outcome into a result, recording it with the circuit breaker
+private <T> T handle(String operation, HttpResponse<JsonNode> response, Throwable error, Function<JSONObject, T> parser) {
+    if (error != null) {
+        breaker.onFailure();
+        Throwable cause = unwrap(error);
+        String reason = cause instanceof TimeoutException
+                ? "timed out after " + callTimeoutMillis + " ms"
+                : "failed: " + cause;
+        throw new PaystackUnavailableException("Paystack " + operation + " " + reason, cause);
+    }
+    int status = response.getStatus();
+    if (status >= 500 || status == 429) {
+        breaker.onFailure();
+        throw new PaystackUnavailableException("Paystack " + operation + " returned HTTP " + status, null);
+    }
+    // Paystack answered, so it is up, even when it turned the request down
+    breaker.onSuccess();
+    JsonNode body = response.getBody();
+    if (status != 200 || body == null || !body.getObject().optBoolean("status")) {
+        String message = body == null ? "" : body.getObject().optString("message");
+        throw new PaystackException("Paystack " + operation + " was rejected (HTTP " + status + "): " + message);
+    }
+    return parser.apply(body.getObject());
+}
+
+// Exponential backoff with equal jitter, so clients that failed together don't retry together
+private long backoff(int attempt) {
+    long ceiling = retryBaseDelayMillis << Math.min(attempt - 1, 10);
+    return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+}
+
+static Throwable unwrap(Throwable error) {
+    while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+        error = error.getCause();
+    }
+    return error;
+}
+
+// Result of starting a transaction
+public record Initialization(String authorizationUrl, String reference) {
+}
+
+// Result of looking up a transaction
+public record Verification(String reference, String status, long amountInKobo) {
+
+    public boolean successful() {
+        return "success".equalsIgnoreCase(status);
+    }
+}
+
+// One page of a transaction listing
+public record TransactionPage(List<Verification> transactions, int page, int pageCount) {
+
+    public boolean hasNext() {
+        return page < pageCount;
+    }
+}
+
+// Paystack answered but turned the request down
+public static class PaystackException extends RuntimeException {
+
+    public PaystackException(String message) {
+        super(message);
+    }
+
+    public PaystackException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
+
+// Paystack could not be reached, was too slow, failed, or the circuit is open; the outcome of the call is unknown
+public static class PaystackUnavailableException extends PaystackException {
+
+    public PaystackUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
+}
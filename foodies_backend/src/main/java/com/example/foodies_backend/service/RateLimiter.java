@@ -0,0 +1,9 @@
+package com.example.foodies_backend.service;
+
+// Token buckets for the rate limit filter. `foodies.ratelimit.store` picks the implementation:
+// "memory" (default) keeps the buckets on this node, "mongo" keeps them in MongoDB so the limits hold across nodes.
+public interface RateLimiter {
+
+// Takes one token from the bucket of key; returns 0 when allowed, otherwise the milliseconds until a token is available
+long tryAcquire(String key, int capacity, double refillPerSecond);
+}
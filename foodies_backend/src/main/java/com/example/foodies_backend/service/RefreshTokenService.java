@@ -0,0 +1,143 @@
+// The `RefreshTokenService` class issues and rotates the refresh tokens that let clients get a new short-lived
+// access token without logging in again (no password check, no BCrypt). Tokens are random and stored only as hashes.
+// A refresh atomically marks the presented token as replaced; a second use of a replaced token revokes its whole family.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.entity.RefreshTokenEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+public class RefreshTokenService {
+
+private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+private final MongoTemplate mongoTemplate;
+private final Duration ttl;
+private final Duration reuseGrace;
+private final SecureRandom random = new SecureRandom();
+
+public RefreshTokenService(MongoTemplate mongoTemplate,
+                           @Value("${jwt.refresh-token-ttl-ms:1209600000}") long ttlMillis,
+                           @Value("${jwt.refresh-token-reuse-grace-ms:10000}") long reuseGraceMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.ttl = Duration.ofMillis(ttlMillis);
+    this.reuseGrace = Duration.ofMillis(reuseGraceMillis);
+}
+
+// A freshly rotated refresh token and the user it belongs to
+public record Rotation(AppUserDetails user, String refreshToken) {
+}
+
+// Starts a new token family for a login and returns its first token
+public String issue(AppUserDetails user) {
+    return store(UUID.randomUUID().toString(), user.getId(), user.getUsername(), Instant.now());
+}
+
+// Exchanges a refresh token for a new one of the same family
+public Rotation rotate(String refreshToken) {
+    if (refreshToken == null || refreshToken.isEmpty()) {
+        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+    }
+    String hash = hash(refreshToken);
+    Instant now = Instant.now();
+    String nextToken = newToken();
+    String nextHash = hash(nextToken);
+
+    // Only one caller can replace a token, however many present it at the same time
+    RefreshTokenEntity current = mongoTemplate.findAndModify(
+            new Query(where("tokenHash").is(hash).and("replacedBy").is(null).and("revoked").is(false).and("expiresAt").gt(now)),
+            new Update().set("replacedBy", nextHash).set("replacedAt", now),
+            FindAndModifyOptions.options().returnNew(false),
+            RefreshTokenEntity.class);
+    if (current == null) {
+        RefreshTokenEntity used = mongoTemplate.findById(hash, RefreshTokenEntity.class);
+        // Within the grace period this is the same client refreshing twice at once (e.g. two tabs), not a replay
+        if (used != null && used.getReplacedBy() != null && !used.isRevoked()
+                && used.getReplacedAt().isBefore(now.minus(reuseGrace))) {
+            // A replaced token came back: either the client or someone who copied it is replaying it
+            log.warn("Refresh token reuse for user {}, revoking family {}", used.getUserId(), used.getFamilyId());
+            revokeFamily(used.getFamilyId());
+        }
+        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+    }
+
+    insert(nextHash, current.getFamilyId(), current.getUserId(), current.getEmail(), now);
+    AppUserDetails user = new AppUserDetails(current.getUserId(), current.getEmail(), "", Collections.emptyList());
+    return new Rotation(user, nextToken);
+}
+
+public void revokeFamily(String familyId) {
+    mongoTemplate.updateMulti(new Query(where("familyId").is(familyId)), new Update().set("revoked", true), RefreshTokenEntity.class);
+}
+
+// Ends the session a refresh token belongs to, e.g. on logout
+public void revoke(String refreshToken) {
+    if (refreshToken == null || refreshToken.isEmpty()) {
+        return;
+    }
+    RefreshTokenEntity token = mongoTemplate.findById(hash(refreshToken), RefreshTokenEntity.class);
+    if (token != null) {
+        revokeFamily(token.getFamilyId());
+    }
+}
+
+// Ends every session of a user, e.g. after a password reset
+public void revokeAll(String userId) {
+    mongoTemplate.updateMulti(new Query(where("userId").is(userId)), new Update().set("revoked", true), RefreshTokenEntity.class);
+}
+
+private String store(String familyId, String userId, String email, Instant now) {
+    String token = newToken();
+    insert(hash(token), familyId, userId, email, now);
+    return token;
+}
+
+private void insert(String tokenHash, String familyId, String userId, String email, Instant now) {
+    mongoTemplate.insert(RefreshTokenEntity.builder()
+            .tokenHash(tokenHash)
+            .familyId(familyId)
+            .userId(userId)
+            .email(email)
+            .createdAt(now)
+            .expiresAt(now.plus(ttl))
+            .build());
+}
+
+// 256 random bits, URL-safe
+private String newToken() {
+    byte[] bytes = new byte[32];
+    random.nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+}
+
+// A plain hash is enough: the token is random, so there is nothing to brute-force
+static String hash(String token) {
+    try {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+        throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+}
+}
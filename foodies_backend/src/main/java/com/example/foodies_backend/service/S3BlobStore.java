@@ -0,0 +1,109 @@
+package com.example.foodies_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+// Default blob store: objects live in the S3 bucket (or an S3-compatible store when aws.s3.endpoint is set)
+@Component
+@ConditionalOnProperty(name = "foodies.blobstore", havingValue = "s3", matchIfMissing = true)
+public class S3BlobStore implements BlobStore {
+
+private final S3Client s3Client;
+private final S3Presigner s3Presigner;
+private final S3StreamingUploader uploader;
+private final String bucketName;
+private final String endpoint;
+
+public S3BlobStore(S3Client s3Client,
+                   S3Presigner s3Presigner,
+                   S3StreamingUploader uploader,
+                   @Value("${aws.s3.bucketname}") String bucketName,
+                   @Value("${aws.s3.endpoint:}") String endpoint) {
+    this.s3Client = s3Client;
+    this.s3Presigner = s3Presigner;
+    this.uploader = uploader;
+    this.bucketName = bucketName;
+    this.endpoint = endpoint;
+}
+
+@Override
+public void put(String key, String contentType, long size, String cacheControl, InputStream in) throws IOException {
+    try {
+        uploader.upload(bucketName, key, contentType, size, cacheControl, in);
+    } catch (SdkException ex) {
+        throw new IOException("Storing " + key + " in S3 failed", ex);
+    }
+}
+
+@Override
+public InputStream open(String key) throws IOException {
+    try {
+        return s3Client.getObject(b -> b.bucket(bucketName).key(key));
+    } catch (SdkException ex) {
+        throw new IOException("Reading " + key + " from S3 failed", ex);
+    }
+}
+
+@Override
+public BlobInfo stat(String key) {
+    try {
+        HeadObjectResponse head = s3Client.headObject(b -> b.bucket(bucketName).key(key));
+        return new BlobInfo(head.contentLength(), head.contentType(), head.lastModified());
+    } catch (NoSuchKeyException ex) {
+        return null;
+    }
+}
+
+@Override
+public void delete(String key) {
+    s3Client.deleteObject(b -> b.bucket(bucketName).key(key));
+}
+
+// S3 has no rename: a server-side copy, then the source is deleted
+@Override
+public void move(String fromKey, String toKey) throws IOException {
+    try {
+        s3Client.copyObject(b -> b.sourceBucket(bucketName).sourceKey(fromKey).destinationBucket(bucketName).destinationKey(toKey));
+        s3Client.deleteObject(b -> b.bucket(bucketName).key(fromKey));
+    } catch (SdkException ex) {
+        throw new IOException("Moving " + fromKey + " to " + toKey + " in S3 failed", ex);
+    }
+}
+
+// Path-style when an S3-compatible endpoint is configured
+@Override
+public String url(String key) {
+    if (!endpoint.isEmpty()) {
+        return endpoint.replaceAll("/+$", "") + "/" + bucketName + "/" + key;
+    }
+    return "https://" + bucketName + ".s3.amazonaws.com/" + key;
+}
+
+// Type and length are signed, so the bucket rejects a different type or a bigger file
+@Override
+public PresignedUpload presignUpload(String key, String contentType, long contentLength, Duration ttl) {
+    PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+            .signatureDuration(ttl)
+            .putObjectRequest(PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength(contentLength)
+                    .build())
+            .build());
+    return new PresignedUpload(presigned.url().toString(), presigned.signedHeaders(), presigned.expiration());
+}
+}
@@ -0,0 +1,122 @@
+// The `S3StreamingUploader` class streams uploads into S3 without holding the whole file in memory.
+// Small files go up in one PutObject straight from the input stream; larger ones use a multipart upload
+// that reuses a single part buffer, so memory per upload stays at one part whatever the file size.
+// The number of concurrent multipart uploads is capped, which caps the memory they can take together.
+package com.example.foodies_backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+@Component
+@ConditionalOnProperty(name = "foodies.blobstore", havingValue = "s3", matchIfMissing = true)
+public class S3StreamingUploader {
+
+private static final Logger log = LoggerFactory.getLogger(S3StreamingUploader.class);
+
+// S3 rejects multipart parts smaller than 5 MiB (except the last one)
+private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+private final S3Client s3Client;
+private final long multipartThreshold;
+private final int partSize;
+private final Semaphore multipartSlots;
+
+public S3StreamingUploader(S3Client s3Client,
+                           @Value("${foodies.upload.multipart-threshold-bytes:8388608}") long multipartThreshold,
+                           @Value("${foodies.upload.part-size-bytes:8388608}") int partSize,
+                           @Value("${foodies.upload.max-concurrent-multipart:4}") int maxConcurrentMultipart) {
+    this.s3Client = s3Client;
+    this.multipartThreshold = multipartThreshold;
+    this.partSize = Math.max(MIN_PART_SIZE, partSize);
+    this.multipartSlots = new Semaphore(maxConcurrentMultipart);
+}
+
+// Streams `size` bytes from `in` to bucket/key; `size` must be the exact length of the stream
+public void upload(String bucket, String key, String contentType, long size, String cacheControl, InputStream in) throws IOException {
+    if (size <= multipartThreshold) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(size)
+                        .cacheControl(cacheControl)
+                        .build(),
+                RequestBody.fromInputStream(in, size));
+        return;
+    }
+    if (!multipartSlots.tryAcquire()) {
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many large uploads in progress, try again shortly");
+    }
+    try {
+        uploadMultipart(bucket, key, contentType, cacheControl, in);
+    } finally {
+        multipartSlots.release();
+    }
+}
+
+private void uploadMultipart(String bucket, String key, String contentType, String cacheControl, InputStream in) throws IOException {
+    String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+            .bucket(bucket)
+            .key(key)
+            .contentType(contentType)
+            .cacheControl(cacheControl)
+            .build()).uploadId();
+    try {
+        byte[] buffer = new byte[partSize]; // The only per-upload buffer, reused for every part
+        List<CompletedPart> parts = new ArrayList<>();
+        int partNumber = 1;
+        int length;
+        while ((length = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+            String etag = s3Client.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length)
+                            .build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length)).eTag();
+            parts.add(CompletedPart.builder().partNumber(partNumber).eTag(etag).build());
+            partNumber++;
+        }
+        s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .build());
+    } catch (IOException | RuntimeException ex) {
+        // Dropping the parts already stored, otherwise S3 keeps (and bills) them
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException abortEx) {
+            log.warn("Aborting multipart upload {} of {} failed", uploadId, key, abortEx);
+        }
+        throw ex;
+    }
+}
+}
@@ -0,0 +1,159 @@
+// The `TokenDenylist` class answers whether an access token was revoked (e.g. by a logout) before it expired.
+// Revocations are written to the revoked_tokens collection; every node keeps them in memory as a Bloom filter in front
+// of an exact set, and polls the collection for new entries. A token that was never revoked, which is nearly every
+// token, is cleared by a few hash probes with no I/O. A revocation made on another node takes effect here at the next poll.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.RevokedTokenEntity;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+public class TokenDenylist {
+
+private static final Logger log = LoggerFactory.getLogger(TokenDenylist.class);
+// Polls look back this far past the newest entry seen, so entries from nodes with a slightly late clock aren't missed
+private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+private final MongoTemplate mongoTemplate;
+private final int expectedTokens;
+private final double falsePositiveRate;
+private final long pollIntervalMillis;
+private final ScheduledExecutorService poller;
+
+// Exact set, token id to expiry; only consulted when the filter says "maybe"
+private final Map<String, Instant> revoked = new ConcurrentHashMap<>();
+private volatile BloomFilter filter;
+// Serializes adds with rebuilds, so a rebuilt filter never misses a token added while it was built; lookups don't take it
+private final ReentrantLock writeLock = new ReentrantLock();
+private Instant lastSeen = Instant.EPOCH; // Only touched by the poller
+
+public TokenDenylist(MongoTemplate mongoTemplate,
+                     TaskThreads taskThreads,
+                     MeterRegistry meterRegistry,
+                     @Value("${foodies.revocation.expected-tokens:100000}") int expectedTokens,
+                     @Value("${foodies.revocation.false-positive-rate:0.001}") double falsePositiveRate,
+                     @Value("${foodies.revocation.poll-interval-ms:2000}") long pollIntervalMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.expectedTokens = expectedTokens;
+    this.falsePositiveRate = falsePositiveRate;
+    this.pollIntervalMillis = pollIntervalMillis;
+    this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+    this.poller = Executors.newSingleThreadScheduledExecutor(taskThreads.factory("revocation-poller"));
+    Gauge.builder("foodies.revocation.tokens", revoked, Map::size)
+            .description("Revoked, not yet expired access tokens held in memory")
+            .register(meterRegistry);
+}
+
+@PostConstruct
+void start() {
+    // Loaded before the first request, so a restart doesn't reopen revoked tokens
+    poll();
+    poller.scheduleWithFixedDelay(this::pollQuietly, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+}
+
+@PreDestroy
+void stop() {
+    poller.shutdown();
+}
+
+public boolean isRevoked(String jti) {
+    if (jti == null || !filter.mightContain(jti)) {
+        return false;
+    }
+    return revoked.containsKey(jti);
+}
+
+// Records the revocation for every node, and takes effect on this one right away
+public void revoke(String jti, String userId, Instant expiresAt) {
+    Instant now = Instant.now();
+    if (jti == null || !expiresAt.isAfter(now)) {
+        return; // Tokens without an id predate revocation; expired ones are rejected anyway
+    }
+    mongoTemplate.save(RevokedTokenEntity.builder()
+            .jti(jti)
+            .userId(userId)
+            .revokedAt(now)
+            .expiresAt(expiresAt)
+            .build());
+    add(jti, expiresAt);
+}
+
+// Picks up revocations made since the last poll, on any node, and forgets expired ones
+void poll() {
+    List<RevokedTokenEntity> fresh = mongoTemplate.find(
+            new Query(where("revokedAt").gte(lastSeen.minus(CLOCK_SKEW)).and("expiresAt").gt(Instant.now()))
+                    .with(Sort.by("revokedAt")),
+            RevokedTokenEntity.class);
+    for (RevokedTokenEntity token : fresh) {
+        if (!revoked.containsKey(token.getJti())) {
+            add(token.getJti(), token.getExpiresAt());
+        }
+        if (token.getRevokedAt().isAfter(lastSeen)) {
+            lastSeen = token.getRevokedAt();
+        }
+    }
+    pruneExpired();
+}
+
+private void pollQuietly() {
+    try {
+        poll();
+    } catch (RuntimeException ex) {
+        // Keep polling; until the next success this node only knows the revocations it already has
+        log.warn("Could not poll revoked tokens", ex);
+    }
+}
+
+private void add(String jti, Instant expiresAt) {
+    writeLock.lock();
+    try {
+        // Set first: a lookup that sees the new filter bits must also find the entry
+        revoked.put(jti, expiresAt);
+        filter.add(jti);
+    } finally {
+        writeLock.unlock();
+    }
+}
+
+// Bits can't be cleared, so once expired tokens make up most of the filter (or it outgrows its size) it is rebuilt
+private void pruneExpired() {
+    Instant now = Instant.now();
+    revoked.values().removeIf(expiresAt -> !expiresAt.isAfter(now));
+    int live = revoked.size();
+    long inserted = filter.insertions();
+    if (inserted <= filter.capacity() && inserted <= 2L * live + 1024) {
+        return;
+    }
+    writeLock.lock();
+    try {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedTokens, 2 * revoked.size()), falsePositiveRate);
+        revoked.keySet().forEach(rebuilt::add);
+        filter = rebuilt;
+    } finally {
+        writeLock.unlock();
+    }
+}
+}
@@ -5,9 +5,13 @@ import com.example.foodies_backend.dto.UserResponse;
 import com.example.foodies_backend.entity.UserEntity;
 import com.example.foodies_backend.repository.UserRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -30,14 +34,20 @@ private final AutthenticationFacade authenticationFacade;
 
 private final EmailService emailService;
 
+private final RefreshTokenService refreshTokenService;
+
 // Registers a new user by saving their details in the database.
 @Override
 public UserResponse registerUser(UserRequest request) {
     // Converts the UserRequest DTO to a UserEntity.
     UserEntity newUser = convertToEntity(request);
 
-    // Saves the new user entity to the database.
-    newUser = userRepository.save(newUser);
+    // Saves the new user entity to the database; the unique email index rejects a second account for the same email.
+    try {
+        newUser = userRepository.save(newUser);
+    } catch (DuplicateKeyException ex) {
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "An account with this email already exists");
+    }
 
     // Converts the saved UserEntity to a UserResponse DTO and returns it.
     return convertToResponse(newUser);
@@ -46,8 +56,15 @@ public UserResponse registerUser(UserRequest request) {
 // Retrieves the ID of the currently logged-in user.
 @Override
 public String findByUserId() {
+    Authentication authentication = authenticationFacade.getAuthentication();
+
+    // Reads the id straight from the principal built from the verified JWT claims.
+    if (authentication.getPrincipal() instanceof AppUserDetails principal) {
+        return principal.getId();
+    }
+
     // Retrieves the email of the logged-in user from the authentication context.
-    String loggedInUserEmail = authenticationFacade.getAuthentication().getName();
+    String loggedInUserEmail = authentication.getName();
 
     // Fetches the user entity from the database using the email or throws an exception if not found.
     UserEntity loggedInUser = userRepository.findByEmail(loggedInUserEmail)
@@ -103,6 +120,9 @@ public void resetPassword(String token, String newPassword) {
     user.setResetTokenExpiry(null);
 
     userRepository.save(user);
+
+    // Signing out every session that was opened with the old password
+    refreshTokenService.revokeAll(user.getId());
 }
 
 }
\ No newline at end of file
@@ -0,0 +1,376 @@
+// The `WriteBehindCartStore` keeps live carts in memory and writes changed carts to MongoDB in batches on a short interval.
+// Several changes to the same cart between two flushes become a single write. Enable it with `foodies.cart.store=write-behind`.
+// Carts live on the node that serves the user, so this mode needs sticky routing (or a single node) to stay consistent.
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.repository.CartRespository;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@Component
+@ConditionalOnProperty(name = "foodies.cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore implements CartStore {
+
+private static final Logger log = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+// Number of lock stripes guarding the carts; a power of two
+private static final int STRIPES = 64;
+
+private final CartRespository cartRespository;
+private final MongoTemplate mongoTemplate;
+private final long flushIntervalMillis;
+private final int maxBatchSize;
+private final long idleEvictionMillis;
+
+// Live carts by user id; each cart is only read or changed while holding its stripe lock
+private final Map<String, LiveCart> carts = new ConcurrentHashMap<>();
+// Users whose cart has changes not yet written to MongoDB
+private final Set<String> dirtyUsers = ConcurrentHashMap.newKeySet();
+private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+// Serializes flushes, so an older snapshot of a cart can never be written after a newer one
+private final ReentrantLock flushLock = new ReentrantLock();
+private final ScheduledExecutorService flusher;
+
+// Time from a cart's first unflushed change until it is written
+private final Timer flushLag;
+// Time spent in one bulk write
+private final Timer flushDuration;
+// Number of carts written per bulk write
+private final DistributionSummary batchSizes;
+
+public WriteBehindCartStore(CartRespository cartRespository,
+                            MongoTemplate mongoTemplate,
+                            MeterRegistry meterRegistry,
+                            TaskThreads taskThreads,
+                            @Value("${foodies.cart.flush-interval-ms:500}") long flushIntervalMillis,
+                            @Value("${foodies.cart.flush-batch-size:500}") int maxBatchSize,
+                            @Value("${foodies.cart.idle-eviction-ms:600000}") long idleEvictionMillis) {
+    this.cartRespository = cartRespository;
+    this.mongoTemplate = mongoTemplate;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.maxBatchSize = maxBatchSize;
+    this.idleEvictionMillis = idleEvictionMillis;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(taskThreads.factory("cart-flusher"));
+    for (int i = 0; i < STRIPES; i++) {
+        stripes[i] = new ReentrantLock();
+    }
+    this.flushLag = Timer.builder("foodies.cart.flush.lag")
+            .description("Time from the first unflushed change of a cart until it is written")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    this.flushDuration = Timer.builder("foodies.cart.flush.duration")
+            .description("Duration of one bulk cart write")
+            .register(meterRegistry);
+    this.batchSizes = DistributionSummary.builder("foodies.cart.flush.batch.size")
+            .description("Carts written per bulk write")
+            .register(meterRegistry);
+    Gauge.builder("foodies.cart.dirty", dirtyUsers, Set::size)
+            .description("Carts with changes not yet written")
+            .register(meterRegistry);
+    Gauge.builder("foodies.cart.live", carts, Map::size)
+            .description("Carts held in memory")
+            .register(meterRegistry);
+}
+
+@PostConstruct
+void start() {
+    flusher.scheduleWithFixedDelay(this::flushDirty, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+}
+
+// Writing every pending change before the application stops
+@PreDestroy
+void stop() throws InterruptedException {
+    flusher.shutdown();
+    flusher.awaitTermination(10, TimeUnit.SECONDS);
+    flushDirty();
+    if (!dirtyUsers.isEmpty()) {
+        log.error("{} carts could not be flushed on shutdown", dirtyUsers.size());
+    }
+}
+
+@Override
+public Optional<CartEntity> find(String userId) {
+    ReentrantLock lock = stripeFor(userId);
+    lock.lock();
+    try {
+        LiveCart cart = load(userId);
+        return cart.exists ? Optional.of(toEntity(userId, cart)) : Optional.empty();
+    } finally {
+        lock.unlock();
+    }
+}
+
+@Override
+public CartEntity applyChanges(String userId, Map<String, Integer> deltas, Map<String, Integer> quantities, boolean upsert) {
+    ReentrantLock lock = stripeFor(userId);
+    lock.lock();
+    try {
+        LiveCart cart = load(userId);
+        if (!cart.exists && !upsert) {
+            return null;
+        }
+        deltas.forEach((foodId, delta) -> cart.items.merge(foodId, delta, Integer::sum));
+        cart.items.putAll(quantities);
+        cart.items.values().removeIf(quantity -> quantity <= 0);
+        cart.exists = true;
+        markDirty(userId, cart);
+        return toEntity(userId, cart);
+    } finally {
+        lock.unlock();
+    }
+}
+
+// Deleting is written through immediately, so callers (e.g. payment confirmation) see it in MongoDB right away
+@Override
+public void delete(String userId) {
+    deleteAll(List.of(userId));
+}
+
+@Override
+public void deleteAll(Collection<String> userIds) {
+    for (String userId : userIds) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            LiveCart cart = carts.computeIfAbsent(userId, key -> new LiveCart());
+            cart.items.clear();
+            cart.exists = false;
+            cart.lastAccessMillis = System.currentTimeMillis();
+            markDirty(userId, cart);
+        } finally {
+            lock.unlock();
+        }
+    }
+    flushLock.lock();
+    try {
+        List<String> batch = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            if (dirtyUsers.remove(userId)) {
+                batch.add(userId);
+            }
+        }
+        writeBatch(batch);
+    } finally {
+        flushLock.unlock();
+    }
+}
+
+@Override
+public void flush(String userId) {
+    flushLock.lock();
+    try {
+        if (dirtyUsers.remove(userId)) {
+            writeBatch(List.of(userId));
+        }
+    } finally {
+        flushLock.unlock();
+    }
+}
+
+// Writes all dirty carts in bounded batches, then drops carts that have been idle for a while
+void flushDirty() {
+    flushLock.lock();
+    try {
+        while (!dirtyUsers.isEmpty()) {
+            List<String> batch = new ArrayList<>(Math.min(maxBatchSize, dirtyUsers.size()));
+            Iterator<String> iterator = dirtyUsers.iterator();
+            while (iterator.hasNext() && batch.size() < maxBatchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            writeBatch(batch);
+        }
+        evictIdle();
+    } catch (RuntimeException ex) {
+        // The failed batch was put back and is retried on the next tick
+        log.error("Flushing carts failed", ex);
+    } finally {
+        flushLock.unlock();
+    }
+}
+
+// Snapshots the given carts and writes them with one unordered bulk operation
+private void writeBatch(List<String> userIds) {
+    List<PendingWrite> writes = new ArrayList<>(userIds.size());
+    for (String userId : userIds) {
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            LiveCart cart = carts.get(userId);
+            if (cart != null && cart.dirty) {
+                writes.add(new PendingWrite(userId, cart.exists, Map.copyOf(cart.items), cart.dirtySinceNanos));
+                cart.dirty = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    if (writes.isEmpty()) {
+        return;
+    }
+
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, CartEntity.class);
+    for (PendingWrite write : writes) {
+        Query query = new Query(where("userId").is(write.userId()));
+        if (write.exists()) {
+            bulk.upsert(query, new Update().set("items", write.items()));
+        } else {
+            bulk.remove(query);
+        }
+    }
+
+    long startNanos = System.nanoTime();
+    BulkWriteResult result;
+    try {
+        result = bulk.execute();
+    } catch (RuntimeException ex) {
+        requeue(writes);
+        throw ex;
+    }
+    long endNanos = System.nanoTime();
+    flushDuration.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+    batchSizes.record(writes.size());
+    for (PendingWrite write : writes) {
+        flushLag.record(endNanos - write.dirtySinceNanos(), TimeUnit.NANOSECONDS);
+    }
+    rememberInsertedIds(writes, result.getUpserts());
+}
+
+// Marks the carts of a failed write dirty again, keeping their original dirty time for the lag metric
+private void requeue(List<PendingWrite> writes) {
+    for (PendingWrite write : writes) {
+        ReentrantLock lock = stripeFor(write.userId());
+        lock.lock();
+        try {
+            LiveCart cart = carts.get(write.userId());
+            if (cart != null) {
+                if (!cart.dirty) {
+                    cart.dirty = true;
+                    cart.dirtySinceNanos = write.dirtySinceNanos();
+                }
+                dirtyUsers.add(write.userId());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+// Carts created by an upsert get their document id only now
+private void rememberInsertedIds(List<PendingWrite> writes, List<BulkWriteUpsert> upserts) {
+    for (BulkWriteUpsert upsert : upserts) {
+        String userId = writes.get(upsert.getIndex()).userId();
+        ReentrantLock lock = stripeFor(userId);
+        lock.lock();
+        try {
+            LiveCart cart = carts.get(userId);
+            if (cart != null && cart.id == null && upsert.getId().isObjectId()) {
+                cart.id = upsert.getId().asObjectId().getValue().toHexString();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+private void evictIdle() {
+    long cutoff = System.currentTimeMillis() - idleEvictionMillis;
+    for (Map.Entry<String, LiveCart> entry : carts.entrySet()) {
+        if (entry.getValue().lastAccessMillis >= cutoff) {
+            continue;
+        }
+        ReentrantLock lock = stripeFor(entry.getKey());
+        lock.lock();
+        try {
+            LiveCart cart = carts.get(entry.getKey());
+            if (cart != null && !cart.dirty && cart.lastAccessMillis < cutoff) {
+                carts.remove(entry.getKey());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+// Returns the live cart of a user, reading it from MongoDB on first access; callers hold the stripe lock
+private LiveCart load(String userId) {
+    LiveCart cart = carts.get(userId);
+    if (cart == null) {
+        LiveCart loaded = new LiveCart();
+        cartRespository.findByUserId(userId).ifPresent(entity -> {
+            loaded.id = entity.getId();
+            if (entity.getItems() != null) {
+                loaded.items.putAll(entity.getItems());
+            }
+            loaded.exists = true;
+        });
+        carts.put(userId, loaded);
+        cart = loaded;
+    }
+    cart.lastAccessMillis = System.currentTimeMillis();
+    return cart;
+}
+
+private void markDirty(String userId, LiveCart cart) {
+    if (!cart.dirty) {
+        cart.dirty = true;
+        cart.dirtySinceNanos = System.nanoTime();
+    }
+    dirtyUsers.add(userId);
+}
+
+private ReentrantLock stripeFor(String userId) {
+    return stripes[userId.hashCode() & (STRIPES - 1)];
+}
+
+private static CartEntity toEntity(String userId, LiveCart cart) {
+    return new CartEntity(cart.id, userId, new HashMap<>(cart.items));
+}
+
+// A cart as held in memory
+private static final class LiveCart {
+    private String id;
+    private final Map<String, Integer> items = new HashMap<>();
+    private boolean exists;
+    private boolean dirty;
+    private long dirtySinceNanos;
+    private long lastAccessMillis;
+}
+
+// A snapshot of one cart taken for a bulk write
+private record PendingWrite(String userId, boolean exists, Map<String, Integer> items, long dirtySinceNanos) {
+}
+}
@@ -0,0 +1,15 @@
+package com.example.foodies_backend;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a test class that runs against a real mongod from TestMongo; it is skipped when none can be had
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(TestMongo.Available.class)
+public @interface RequiresMongo {
+}
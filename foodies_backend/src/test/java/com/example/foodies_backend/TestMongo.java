@@ -0,0 +1,63 @@
+// The `TestMongo` class gives the Mongo-backed tests a real mongod: the one at MONGODB_TEST_URI when it is set,
+// otherwise a MongoDB container started once for the whole test run (this needs Docker). Classes annotated
+// @RequiresMongo are skipped, not failed, on a machine with neither.
+package com.example.foodies_backend;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+public final class TestMongo {
+
+public static final String DATABASE = "foodies_test";
+
+private static String uri;
+
+private TestMongo() {
+}
+
+public static synchronized String uri() {
+    if (uri == null) {
+        String configured = configuredUri();
+        if (configured != null) {
+            uri = configured;
+        } else {
+            // A single-node replica set, like production; removed by Testcontainers when the test JVM exits
+            MongoDBContainer container = new MongoDBContainer(DockerImageName.parse("mongo:7.0"));
+            container.start();
+            uri = container.getReplicaSetUrl();
+        }
+    }
+    return uri;
+}
+
+// A new client for one test class; close it when the class is done
+public static MongoClient client() {
+    return MongoClients.create(uri());
+}
+
+private static String configuredUri() {
+    String configured = System.getenv("MONGODB_TEST_URI");
+    return configured == null || configured.isBlank() ? null : configured;
+}
+
+// Backs @RequiresMongo
+static final class Available implements ExecutionCondition {
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        if (configuredUri() != null) {
+            return ConditionEvaluationResult.enabled("MONGODB_TEST_URI is set");
+        }
+        if (DockerClientFactory.instance().isDockerAvailable()) {
+            return ConditionEvaluationResult.enabled("Docker is available for a MongoDB container");
+        }
+        return ConditionEvaluationResult.disabled("Needs MongoDB: set MONGODB_TEST_URI or make Docker available");
+    }
+}
+}
@@ -0,0 +1,130 @@
+package com.example.foodies_backend.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Uses a stand-in encoder that blocks until released, so the pool can be saturated on purpose
+class BoundedPasswordEncoderTests {
+
+private final CountDownLatch release = new CountDownLatch(1);
+private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+private BoundedPasswordEncoder encoder;
+
+@AfterEach
+void shutdown() {
+    release.countDown();
+    encoder.shutdown();
+}
+
+@Test
+void hashesRunOnThePool() {
+    release.countDown();
+    encoder = newEncoder(1, 1, 1000);
+
+    assertThat(encoder.encode("secret")).isEqualTo("hashed:secret");
+    assertThat(encoder.matches("secret", "hashed:secret")).isTrue();
+    assertThat(meterRegistry.get("foodies.password.hash").tag("operation", "encode").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("foodies.password.queue.wait").timer().count()).isEqualTo(2);
+}
+
+@Test
+void aFullQueueIsRefusedRightAwayWithRetryAfter() throws Exception {
+    encoder = newEncoder(1, 1, 10_000);
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+    CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+    waitForQueue(1);
+
+    long start = System.nanoTime();
+    assertThatThrownBy(() -> encoder.encode("c"))
+            .isInstanceOfSatisfying(TooManyRequestsException.class, ex -> {
+                assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                assertThat(ex.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotNull();
+                assertThat(ex.getRetryAfterSeconds()).isGreaterThanOrEqualTo(1);
+            });
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+    assertThat(meterRegistry.get("foodies.password.rejected").counter().count()).isEqualTo(1);
+
+    release.countDown();
+    assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:a");
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:b");
+}
+
+@Test
+void waitingTooLongIsRefused() {
+    encoder = newEncoder(1, 10, 100);
+    CompletableFuture.runAsync(() -> encoder.encode("a"));
+
+    assertThatThrownBy(() -> encoder.encode("b")).isInstanceOf(TooManyRequestsException.class);
+}
+
+@Test
+void aHashThatWaitedTooLongGivesItsQueueSlotBack() throws Exception {
+    encoder = newEncoder(1, 1, 100);
+    CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+    waitForStartedHashes(1);
+
+    // Each queued hash waits out max-wait, is refused and frees its slot for the next one
+    for (int i = 0; i < 3; i++) {
+        assertThatThrownBy(() -> encoder.encode("b")).isInstanceOf(TooManyRequestsException.class);
+        assertThat(meterRegistry.get("foodies.password.queue.size").gauge().value()).isZero();
+    }
+    assertThat(meterRegistry.get("foodies.password.rejected").counter().count()).isEqualTo(3);
+
+    // The running hash has now taken three times max-wait, but started in time, so it still completes
+    assertThat(running).isNotDone();
+    release.countDown();
+    assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed:a");
+    assertThat(encoder.encode("c")).isEqualTo("hashed:c");
+}
+
+private BoundedPasswordEncoder newEncoder(int threads, int queueSize, long maxWaitMillis) {
+    PasswordEncoder blocking = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("hashed:" + rawPassword);
+        }
+    };
+    return new BoundedPasswordEncoder(blocking, new TaskThreads(false, 1), meterRegistry, threads, queueSize, maxWaitMillis);
+}
+
+private void await() {
+    try {
+        release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+    }
+}
+
+// A hash records its queue wait when it starts running
+private void waitForStartedHashes(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.get("foodies.password.queue.wait").timer().count() < count && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+    }
+}
+
+private void waitForQueue(int size) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (meterRegistry.get("foodies.password.queue.size").gauge().value() < size && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+    }
+}
+}
@@ -0,0 +1,99 @@
+package com.example.foodies_backend.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.BucketAlreadyOwnedByYouException;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against a local S3-compatible store, e.g. MinIO:
+// S3_TEST_ENDPOINT=http://localhost:9000 S3_TEST_ACCESS_KEY=minioadmin S3_TEST_SECRET_KEY=minioadmin
+@EnabledIfEnvironmentVariable(named = "S3_TEST_ENDPOINT", matches = ".+")
+class S3DirectUploadTests {
+
+private static final String BUCKET = "foodies-test";
+private static final byte[] IMAGE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 0x10, 'J', 'F', 'I', 'F'};
+
+private static S3Client s3Client;
+private static S3Presigner s3Presigner;
+private static final HttpClient http = HttpClient.newHttpClient();
+
+@BeforeAll
+static void connect() {
+    AWSConfig config = new AWSConfig();
+    ReflectionTestUtils.setField(config, "accessKey", System.getenv("S3_TEST_ACCESS_KEY"));
+    ReflectionTestUtils.setField(config, "secretKey", System.getenv("S3_TEST_SECRET_KEY"));
+    ReflectionTestUtils.setField(config, "region", "us-east-1");
+    ReflectionTestUtils.setField(config, "endpoint", System.getenv("S3_TEST_ENDPOINT"));
+    s3Client = config.s3Client();
+    s3Presigner = config.s3Presigner();
+    try {
+        s3Client.createBucket(CreateBucketRequest.builder().bucket(BUCKET).build());
+    } catch (BucketAlreadyOwnedByYouException ex) {
+        // Left over from an earlier run
+    }
+}
+
+@AfterAll
+static void disconnect() {
+    s3Presigner.close();
+    s3Client.close();
+}
+
+@Test
+void presignedPutStoresTheObjectWithTheSignedType() throws Exception {
+    String key = UUID.randomUUID() + ".jpg";
+    PresignedPutObjectRequest presigned = presign(key, "image/jpeg", IMAGE.length);
+
+    HttpResponse<String> response = http.send(HttpRequest.newBuilder(presigned.url().toURI())
+            .header("Content-Type", "image/jpeg")
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(IMAGE))
+            .build(), HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    HeadObjectResponse head = s3Client.headObject(b -> b.bucket(BUCKET).key(key));
+    assertThat(head.contentType()).isEqualTo("image/jpeg");
+    assertThat(head.contentLength()).isEqualTo(IMAGE.length);
+}
+
+@Test
+void presignedPutRejectsADifferentContentType() throws Exception {
+    String key = UUID.randomUUID() + ".jpg";
+    PresignedPutObjectRequest presigned = presign(key, "image/jpeg", IMAGE.length);
+
+    HttpResponse<String> response = http.send(HttpRequest.newBuilder(presigned.url().toURI())
+            .header("Content-Type", "text/html")
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(IMAGE))
+            .build(), HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(403);
+}
+
+private static PresignedPutObjectRequest presign(String key, String contentType, long length) {
+    return s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+            .signatureDuration(Duration.ofMinutes(5))
+            .putObjectRequest(PutObjectRequest.builder()
+                    .bucket(BUCKET)
+                    .key(key)
+                    .contentType(contentType)
+                    .contentLength(length)
+                    .build())
+            .build());
+}
+}
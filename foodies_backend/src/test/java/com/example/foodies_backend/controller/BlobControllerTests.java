@@ -0,0 +1,31 @@
+package com.example.foodies_backend.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlobControllerTests {
+
+@Test
+void rangesAreClampedToTheFile() {
+    assertThat(BlobController.parseRange("bytes=0-99", 1000)).containsExactly(0, 100);
+    assertThat(BlobController.parseRange("bytes=900-", 1000)).containsExactly(900, 1000);
+    assertThat(BlobController.parseRange("bytes=900-5000", 1000)).containsExactly(900, 1000);
+    assertThat(BlobController.parseRange("bytes=-100", 1000)).containsExactly(900, 1000);
+    assertThat(BlobController.parseRange("bytes=-5000", 1000)).containsExactly(0, 1000);
+}
+
+@Test
+void unsatisfiableRangesAreReported() {
+    assertThat(BlobController.parseRange("bytes=1000-", 1000)).isNull();
+    assertThat(BlobController.parseRange("bytes=-0", 1000)).isNull();
+}
+
+@Test
+void unsupportedRangesServeTheWholeFile() {
+    assertThat(BlobController.parseRange("bytes=0-1,5-9", 1000)).isEmpty();
+    assertThat(BlobController.parseRange("items=0-1", 1000)).isEmpty();
+    assertThat(BlobController.parseRange("bytes=abc", 1000)).isEmpty();
+    assertThat(BlobController.parseRange("bytes=50-10", 1000)).isEmpty();
+}
+}
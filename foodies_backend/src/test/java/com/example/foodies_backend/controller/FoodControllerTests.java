@@ -0,0 +1,34 @@
+package com.example.foodies_backend.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FoodControllerTests {
+
+@Test
+void gzipIsUsedWhenTheClientAcceptsIt() {
+    assertThat(FoodController.acceptsGzip("gzip")).isTrue();
+    assertThat(FoodController.acceptsGzip("deflate, gzip, br")).isTrue();
+    assertThat(FoodController.acceptsGzip("br;q=1.0, GZIP ;q=0.5")).isTrue();
+    assertThat(FoodController.acceptsGzip("identity, *")).isTrue();
+    assertThat(FoodController.acceptsGzip("gzip;level=1;q=0.01")).isTrue();
+}
+
+@Test
+void gzipIsNotUsedWhenAbsentOrDisabled() {
+    assertThat(FoodController.acceptsGzip(null)).isFalse();
+    assertThat(FoodController.acceptsGzip("")).isFalse();
+    assertThat(FoodController.acceptsGzip("br, deflate")).isFalse();
+    assertThat(FoodController.acceptsGzip("x-gzip")).isFalse();
+    assertThat(FoodController.acceptsGzip("gzip;q=0")).isFalse();
+    assertThat(FoodController.acceptsGzip("gzip; q=0.000")).isFalse();
+    assertThat(FoodController.acceptsGzip("*;q=0")).isFalse();
+}
+
+@Test
+void anExplicitGzipEntryWinsOverTheWildcard() {
+    assertThat(FoodController.acceptsGzip("*, gzip;q=0")).isFalse();
+    assertThat(FoodController.acceptsGzip("*;q=0, gzip")).isTrue();
+}
+}
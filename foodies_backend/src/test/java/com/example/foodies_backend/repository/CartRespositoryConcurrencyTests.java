@@ -0,0 +1,116 @@
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.entity.CartEntity;
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Runs against a real mongod, see TestMongo
+@RequiresMongo
+class CartRespositoryConcurrencyTests {
+
+private static final String USER_ID = "user-1";
+private static final String FOOD_ID = "food1";
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+private static CartRespositoryCustomImpl carts;
+
+@BeforeAll
+static void connect() {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+    mongoTemplate.indexOps(CartEntity.class).ensureIndex(new Index("userId", Sort.Direction.ASC).unique());
+    carts = new CartRespositoryCustomImpl(mongoTemplate);
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void clearCarts() {
+    mongoTemplate.remove(new Query(), CartEntity.class);
+}
+
+@Test
+void parallelAddsOnANewCartAreNotLost() throws Exception {
+    runInParallel(200, i -> carts.applyDeltas(USER_ID, Map.of(FOOD_ID, 1), true));
+
+    assertThat(mongoTemplate.count(new Query(where("userId").is(USER_ID)), CartEntity.class)).isEqualTo(1);
+    assertThat(quantity()).isEqualTo(200);
+}
+
+@Test
+void parallelAddsAndRemovesSettleToTheirDifference() throws Exception {
+    carts.applyDeltas(USER_ID, Map.of(FOOD_ID, 100), true);
+
+    runInParallel(160, i -> carts.applyDeltas(USER_ID, Map.of(FOOD_ID, i % 8 < 5 ? 1 : -1), false));
+
+    // 100 adds and 60 removes on top of the initial 100
+    assertThat(quantity()).isEqualTo(140);
+}
+
+@Test
+void removingTheLastUnitDropsTheItem() {
+    carts.applyDeltas(USER_ID, Map.of(FOOD_ID, 1, "food2", 2), true);
+
+    CartEntity cart = carts.applyDeltas(USER_ID, Map.of(FOOD_ID, -1), false);
+
+    assertThat(cart.getItems()).containsOnlyKeys("food2");
+}
+
+@Test
+void removingFromAMissingCartDoesNotCreateIt() {
+    assertThat(carts.applyDeltas(USER_ID, Map.of(FOOD_ID, -1), false)).isNull();
+    assertThat(mongoTemplate.count(new Query(), CartEntity.class)).isZero();
+}
+
+private int quantity() {
+    CartEntity cart = mongoTemplate.findOne(new Query(where("userId").is(USER_ID)), CartEntity.class);
+    return cart.getItems().getOrDefault(FOOD_ID, 0);
+}
+
+private interface Step {
+    void run(int index);
+}
+
+private static void runInParallel(int count, Step step) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(16);
+    try {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            tasks.add(() -> {
+                step.run(index);
+                return null;
+            });
+        }
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            result.get();
+        }
+    } finally {
+        pool.shutdown();
+    }
+}
+}
@@ -0,0 +1,208 @@
+package com.example.foodies_backend.repository;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.config.MongoIndexConfig;
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.entity.OrderEntity;
+import com.example.foodies_backend.entity.UserEntity;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Runs against a real mongod, see TestMongo
+// Creates the indexes the way the application does at startup, calls each repository method, captures the command
+// it sent to the server, and explains that exact command
+@RequiresMongo
+class RepositoryIndexUsageTests {
+
+private static final Set<String> QUERY_COMMANDS = Set.of("find", "delete", "findAndModify", "update");
+// Driver and session fields that are not part of the query and are not accepted inside an explain
+private static final Set<String> SESSION_FIELDS = Set.of("lsid", "txnNumber", "apiVersion", "apiStrict", "apiDeprecationErrors");
+
+private static final List<Document> sent = new CopyOnWriteArrayList<>();
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+private static UserRepository users;
+private static CartRespository carts;
+private static OrderRepository orders;
+
+@BeforeAll
+static void connect() {
+    CommandListener recorder = new CommandListener() {
+        @Override
+        public void commandStarted(CommandStartedEvent event) {
+            if (QUERY_COMMANDS.contains(event.getCommandName())) {
+                // Copied right away: the event's document is only valid during the callback
+                sent.add(Document.parse(event.getCommand().toJson()));
+            }
+        }
+    };
+    client = MongoClients.create(MongoClientSettings.builder()
+            .applyConnectionString(new ConnectionString(TestMongo.uri()))
+            .addCommandListener(recorder)
+            .build());
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+
+    MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+    users = factory.getRepository(UserRepository.class);
+    carts = factory.getRepository(CartRespository.class,
+            RepositoryComposition.RepositoryFragments.just(new CartRespositoryCustomImpl(mongoTemplate)));
+    orders = factory.getRepository(OrderRepository.class);
+
+    mongoTemplate.dropCollection(UserEntity.class);
+    mongoTemplate.dropCollection(CartEntity.class);
+    mongoTemplate.dropCollection(OrderEntity.class);
+    new MongoIndexConfig(mongoTemplate, (MongoMappingContext) mongoTemplate.getConverter().getMappingContext()).ensureIndexes();
+
+    String[] statuses = {"preparing", "out for delivery", "delivered"};
+    for (int i = 0; i < 200; i++) {
+        mongoTemplate.insert(UserEntity.builder().name("User " + i).email("user" + i + "@foodies.test")
+                .resetToken(i % 10 == 0 ? "reset-" + i : null).build());
+        mongoTemplate.insert(new CartEntity("user-" + i, Map.of("food1", 1)));
+        mongoTemplate.insert(OrderEntity.builder().userId("user-" + i % 20).paymentReference("ref-" + i)
+                .paymentStatus("paid").orderStatus(statuses[i % 3]).createdAt(Instant.now().minusSeconds(i)).build());
+    }
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void clearRecordedCommands() {
+    sent.clear();
+}
+
+@Test
+void usersByEmail() {
+    assertThat(users.findByEmail("user7@foodies.test")).isPresent();
+
+    assertLastCommandUsesIndex("email");
+}
+
+@Test
+void usersByResetToken() {
+    assertThat(users.findByResetToken("reset-10")).isPresent();
+
+    assertLastCommandUsesIndex("resetToken");
+}
+
+@Test
+void cartByUserId() {
+    assertThat(carts.findByUserId("user-7")).isPresent();
+
+    assertLastCommandUsesIndex("userId");
+}
+
+@Test
+void cartDeleteByUserId() {
+    carts.deleteByUserId("user-199");
+
+    assertLastCommandUsesIndex("userId");
+}
+
+@Test
+void cartUpdates() {
+    carts.applyDeltas("user-8", Map.of("food2", 1), false);
+
+    assertLastCommandUsesIndex("userId");
+}
+
+@Test
+void ordersByUserId() {
+    assertThat(orders.findByUserId("user-7")).isNotEmpty();
+
+    assertLastCommandUsesIndex("userId");
+}
+
+@Test
+void ordersByPaymentReference() {
+    assertThat(orders.findByPaymentReference("ref-7")).isPresent();
+
+    assertLastCommandUsesIndex("paymentReference");
+}
+
+// No repository method reads orders by status yet; this is the query shape the orderStatus_createdAt index is for
+@Test
+void ordersByStatusNewestFirst() {
+    mongoTemplate.find(new Query(where("orderStatus").is("preparing")).with(Sort.by(Sort.Direction.DESC, "createdAt")), OrderEntity.class);
+
+    Document plan = assertLastCommandUsesIndex("orderStatus");
+    // Served in index order, without an in-memory sort
+    assertThat(stages(plan)).doesNotContain("SORT");
+}
+
+// Explains the last query command sent and checks it is answered from an index led by `leadingField`
+private static Document assertLastCommandUsesIndex(String leadingField) {
+    assertThat(sent).isNotEmpty();
+    Document plan = explain(sent.get(sent.size() - 1));
+
+    assertThat(stages(plan)).contains("IXSCAN").doesNotContain("COLLSCAN");
+    assertThat(keyPatterns(plan)).anySatisfy(keyPattern ->
+            assertThat(keyPattern.keySet().iterator().next()).isEqualTo(leadingField));
+    return plan;
+}
+
+private static Document explain(Document command) {
+    Document query = new Document();
+    command.forEach((field, value) -> {
+        if (!field.startsWith("$") && !SESSION_FIELDS.contains(field)) {
+            query.append(field, value);
+        }
+    });
+    Document explained = mongoTemplate.getDb().runCommand(new Document("explain", query).append("verbosity", "queryPlanner"));
+    return explained.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+}
+
+// Every "stage" in the plan tree; newer servers nest the classic plan under "queryPlan"
+private static List<String> stages(Object node) {
+    List<String> stages = new ArrayList<>();
+    collect(node, "stage", stages);
+    return stages;
+}
+
+private static List<Document> keyPatterns(Object node) {
+    List<Document> keyPatterns = new ArrayList<>();
+    collect(node, "keyPattern", keyPatterns);
+    return keyPatterns;
+}
+
+@SuppressWarnings("unchecked")
+private static <T> void collect(Object node, String field, List<T> found) {
+    if (node instanceof Document document) {
+        if (document.containsKey(field)) {
+            found.add((T) document.get(field));
+        }
+        document.values().forEach(value -> collect(value, field, found));
+    } else if (node instanceof List<?> list) {
+        list.forEach(value -> collect(value, field, found));
+    }
+}
+}
@@ -0,0 +1,51 @@
+package com.example.foodies_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTests {
+
+@Test
+void everyAddedValueIsFound() {
+    BloomFilter filter = new BloomFilter(10_000, 0.001);
+    String[] ids = new String[10_000];
+    for (int i = 0; i < ids.length; i++) {
+        ids[i] = UUID.randomUUID().toString();
+        filter.add(ids[i]);
+    }
+
+    for (String id : ids) {
+        assertThat(filter.mightContain(id)).isTrue();
+    }
+    assertThat(filter.insertions()).isEqualTo(10_000);
+}
+
+@Test
+void falsePositivesStayNearTheConfiguredRate() {
+    BloomFilter filter = new BloomFilter(10_000, 0.001);
+    for (int i = 0; i < 10_000; i++) {
+        filter.add(UUID.randomUUID().toString());
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+        if (filter.mightContain(UUID.randomUUID().toString())) {
+            falsePositives++;
+        }
+    }
+    // About 100 expected; the bound leaves room for chance
+    assertThat(falsePositives).isLessThan(300);
+    assertThat(filter.hashCount()).isEqualTo(10);
+}
+
+@Test
+void anEmptyFilterContainsNothing() {
+    BloomFilter filter = new BloomFilter(100, 0.01);
+
+    assertThat(filter.mightContain("")).isFalse();
+    assertThat(filter.mightContain(UUID.randomUUID().toString())).isFalse();
+}
+}
@@ -0,0 +1,190 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.EmailOutboxEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+// Sends through a minimal in-process SMTP server that rejects recipients containing "reject"
+class EmailOutboxTests {
+
+private ServerSocket server;
+private final AtomicInteger connections = new AtomicInteger();
+private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+@BeforeEach
+void startServer() throws IOException {
+    server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread acceptor = new Thread(() -> {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.incrementAndGet();
+                new Thread(() -> converse(socket)).start();
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    });
+    acceptor.setDaemon(true);
+    acceptor.start();
+}
+
+@AfterEach
+void stopServer() throws IOException {
+    server.close();
+}
+
+@Test
+void aBatchIsSentOverOneConnection() {
+    EmailOutbox outbox = newOutbox(server.getLocalPort());
+
+    Map<String, Exception> failures = outbox.sendBatch(List.of(email("1", "a@foodies.test"), email("2", "b@foodies.test"), email("3", "c@foodies.test")));
+
+    assertThat(failures).isEmpty();
+    assertThat(delivered).containsExactly("a@foodies.test", "b@foodies.test", "c@foodies.test");
+    assertThat(connections).hasValue(1);
+}
+
+@Test
+void aRejectedRecipientOnlyFailsItsOwnEmail() {
+    EmailOutbox outbox = newOutbox(server.getLocalPort());
+
+    Map<String, Exception> failures = outbox.sendBatch(List.of(email("1", "a@foodies.test"), email("2", "reject@foodies.test"), email("3", "c@foodies.test")));
+
+    assertThat(failures).containsOnlyKeys("2");
+    assertThat(delivered).containsExactly("a@foodies.test", "c@foodies.test");
+}
+
+@Test
+void anUnreachableServerFailsTheWholeBatch() throws IOException {
+    int port = server.getLocalPort();
+    server.close();
+    EmailOutbox outbox = newOutbox(port);
+
+    Map<String, Exception> failures = outbox.sendBatch(List.of(email("1", "a@foodies.test"), email("2", "b@foodies.test")));
+
+    assertThat(failures).containsOnlyKeys("1", "2");
+}
+
+@Test
+void aStalledServerFailsTheBatchInsteadOfHangingTheDispatcher() throws IOException {
+    // Accepts connections (the kernel completes the handshake) but never sends the SMTP greeting
+    try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+        EmailOutbox outbox = newOutbox(silent.getLocalPort(), 300);
+
+        Map<String, Exception> failures = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> outbox.sendBatch(List.of(email("1", "a@foodies.test"), email("2", "b@foodies.test"))));
+
+        assertThat(failures).containsOnlyKeys("1", "2");
+    }
+}
+
+@Test
+void smtpTimeoutsAreSetUnlessConfigured() {
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+
+    EmailOutbox.applySmtpTimeouts(mailSender, 30_000);
+
+    assertThat(mailSender.getJavaMailProperties())
+            .containsEntry("mail.smtp.connectiontimeout", "30000")
+            .containsEntry("mail.smtp.timeout", "5000")
+            .containsEntry("mail.smtp.writetimeout", "30000")
+            .containsEntry("mail.smtps.timeout", "30000");
+}
+
+@Test
+void anSmtpTimeoutAboveTheClaimTimeoutIsRejected() {
+    assertThatThrownBy(() -> newOutbox(server.getLocalPort(), 60_000))
+            .isInstanceOf(IllegalArgumentException.class);
+}
+
+@Test
+void backoffGrowsUpToTheCap() {
+    for (int attempt = 1; attempt <= 30; attempt++) {
+        long expected = Math.min(60_000, 1000L << Math.min(attempt - 1, 20));
+        Duration delay = EmailOutbox.backoff(attempt, 1000, 60_000);
+        assertThat(delay.toMillis()).isBetween(expected / 2, expected);
+    }
+}
+
+private EmailOutbox newOutbox(int port) {
+    return newOutbox(port, 2000);
+}
+
+private EmailOutbox newOutbox(int port, long smtpTimeoutMillis) {
+    JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+    mailSender.setHost("127.0.0.1");
+    mailSender.setPort(port);
+    return new EmailOutbox(null, mailSender, new TaskThreads(false, 1), new SimpleMeterRegistry(),
+            "noreply@foodies.test", 50, 3, 60_000, 60_000, smtpTimeoutMillis, 1000, 60_000);
+}
+
+private static EmailOutboxEntity email(String id, String recipient) {
+    return EmailOutboxEntity.builder().id(id).recipient(recipient).subject("Hello").body("Body of " + id).build();
+}
+
+private void converse(Socket socket) {
+    try (socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+         PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)) {
+        reply(out, "220 stub ready");
+        String recipient = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                reply(out, "250 stub");
+            } else if (command.startsWith("MAIL FROM")) {
+                reply(out, "250 OK");
+            } else if (command.startsWith("RCPT TO")) {
+                recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+                reply(out, recipient.contains("reject") ? "550 No such user" : "250 OK");
+            } else if (command.equals("DATA")) {
+                reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                while ((line = in.readLine()) != null && !line.equals(".")) {
+                    // Skipping the message content
+                }
+                delivered.add(recipient);
+                reply(out, "250 OK queued");
+            } else if (command.equals("QUIT")) {
+                reply(out, "221 Bye");
+                return;
+            } else if (command.startsWith("RSET") || command.startsWith("NOOP")) {
+                reply(out, "250 OK");
+            } else {
+                reply(out, "502 Not implemented");
+            }
+        }
+    } catch (IOException ex) {
+        // The client went away
+    }
+}
+
+private static void reply(PrintWriter out, String line) {
+    out.print(line + "\r\n");
+    out.flush();
+}
+}
@@ -0,0 +1,123 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.dto.FoodResponse;
+import com.example.foodies_backend.dto.FoodSearchResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static java.util.Map.entry;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FoodSearchIndexTests {
+
+private final FoodSearchIndex index = new FoodSearchIndex();
+
+@BeforeEach
+void buildIndex() {
+    ReflectionTestUtils.setField(index, "priceBands", new double[]{10, 20, 50, 100});
+    index.rebuild(List.of(
+            food("1", "Jollof Rice", "Rice", "Smoky party rice with pepper", 25),
+            food("2", "Fried Rice", "Rice", "Rice stir fried with vegetables", 22),
+            food("3", "Pepper Soup", "Soup", "Spicy goat broth", 15),
+            food("4", "Puff Puff", "Snacks", "Sweet fried dough", 5),
+            food("5", "Egusi Soup", "Soup", "Melon seed soup with spinach", 30),
+            food("6", "Suya", "Grill", "Spiced beef skewers with pepper", 120)));
+}
+
+@Test
+void aOneLetterPrefixSuggestsTerms() {
+    List<String> suggestions = index.suggest("p", 10);
+
+    // Most common first: pepper is in three foods
+    assertThat(suggestions).first().isEqualTo("pepper");
+    assertThat(suggestions).containsExactlyInAnyOrder("pepper", "puff", "party");
+}
+
+@Test
+void suggestionsCompleteTheLastWord() {
+    assertThat(index.suggest("spicy p", 10)).contains("pepper", "puff", "party");
+    assertThat(index.suggest("egu", 10)).containsExactly("egusi");
+    assertThat(index.suggest("  ", 10)).isEmpty();
+}
+
+@Test
+void aOneLetterQueryMatchesAsAPrefix() {
+    FoodSearchResponse response = index.search("p", null, 10);
+
+    assertThat(response.getItems()).extracting(FoodResponse::getId).containsExactlyInAnyOrder("1", "3", "4", "6");
+}
+
+@Test
+void nameHitsRankAboveDescriptionHits() {
+    FoodSearchResponse response = index.search("pepper", null, 10);
+
+    assertThat(response.getTotal()).isEqualTo(3);
+    assertThat(response.getItems()).first().extracting(FoodResponse::getId).isEqualTo("3");
+}
+
+@Test
+void foodsMatchingMoreWordsRankFirst() {
+    FoodSearchResponse response = index.search("pepper soup", null, 10);
+
+    assertThat(response.getItems()).first().extracting(FoodResponse::getId).isEqualTo("3");
+}
+
+@Test
+void theLastWordMatchesAsAPrefix() {
+    assertThat(index.search("jol", null, 10).getItems()).extracting(FoodResponse::getId).containsExactly("1");
+}
+
+@Test
+void oneTypoIsTolerated() {
+    assertThat(index.search("jolof", null, 10).getItems()).extracting(FoodResponse::getId).containsExactly("1");
+    assertThat(index.search("suay", null, 10).getItems()).extracting(FoodResponse::getId).containsExactly("6");
+}
+
+@Test
+void theLimitKeepsTheBestMatches() {
+    FoodSearchResponse response = index.search("pepper", null, 1);
+
+    assertThat(response.getItems()).extracting(FoodResponse::getId).containsExactly("3");
+    assertThat(response.getTotal()).isEqualTo(3);
+}
+
+@Test
+void theCategoryFacetIgnoresTheCategoryFilter() {
+    FoodSearchResponse response = index.search("fried", "rice", 10);
+
+    assertThat(response.getItems()).extracting(FoodResponse::getId).containsExactly("2");
+    assertThat(response.getTotal()).isEqualTo(1);
+    assertThat(response.getCategories()).containsEntry("Rice", 1).containsEntry("Snacks", 1);
+    assertThat(response.getPriceBands()).containsEntry("20-50", 1).containsEntry("0-10", 0);
+}
+
+@Test
+void anEmptyQueryDescribesTheWholeMenu() {
+    FoodSearchResponse response = index.search("", null, 10);
+
+    assertThat(response.getTotal()).isEqualTo(6);
+    assertThat(response.getCategories()).containsEntry("Rice", 2).containsEntry("Soup", 2);
+    assertThat(response.getPriceBands())
+            .containsExactly(entry("0-10", 1), entry("10-20", 1), entry("20-50", 3), entry("50-100", 0), entry("100+", 1));
+}
+
+@Test
+void patchesAddReplaceAndRemoveSingleFoods() {
+    index.index(food("7", "Plantain Chips", "Snacks", "Crunchy fried plantain", 8));
+    assertThat(index.search("plantain", null, 10).getItems()).extracting(FoodResponse::getId).containsExactly("7");
+
+    index.index(food("3", "Goat Broth", "Soup", "Spicy goat broth", 15));
+    assertThat(index.search("pepper", null, 10).getItems()).extracting(FoodResponse::getId).containsExactlyInAnyOrder("1", "6");
+
+    index.remove("4");
+    assertThat(index.suggest("p", 10)).containsExactlyInAnyOrder("pepper", "party", "plantain");
+    assertThat(index.search("dough", null, 10).getItems()).isEmpty();
+}
+
+private static FoodResponse food(String id, String name, String category, String description, double price) {
+    return FoodResponse.builder().id(id).name(name).category(category).description(description).price(price).build();
+}
+}
@@ -0,0 +1,202 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.dto.FoodConfirmRequest;
+import com.example.foodies_backend.dto.FoodImageUploadRequest;
+import com.example.foodies_backend.dto.FoodImageUploadResponse;
+import com.example.foodies_backend.dto.FoodRequest;
+import com.example.foodies_backend.dto.FoodResponse;
+import com.example.foodies_backend.entity.FoodEntity;
+import com.example.foodies_backend.entity.PendingUploadEntity;
+import com.example.foodies_backend.repository.FoodRepository;
+import com.example.foodies_backend.repository.FoodRepositoryCustomImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Runs against a real mongod, see TestMongo; images go to a LocalBlobStore in a temporary directory
+@RequiresMongo
+class FoodServiceImplTests {
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+private static FoodRepository foodRepository;
+private static byte[] png;
+
+@TempDir
+Path root;
+
+private LocalBlobStore blobStore;
+private FoodServiceImpl foodService;
+
+@BeforeAll
+static void connect() throws IOException {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+    foodRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(FoodRepository.class,
+            RepositoryComposition.RepositoryFragments.just(new FoodRepositoryCustomImpl(mongoTemplate)));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB), "png", out);
+    png = out.toByteArray();
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void createService() throws IOException {
+    mongoTemplate.remove(new Query(), PendingUploadEntity.class);
+    mongoTemplate.remove(new Query(), FoodEntity.class);
+    blobStore = new LocalBlobStore(root.toString(), "http://localhost:8080", "test-key");
+    foodService = new FoodServiceImpl();
+    ReflectionTestUtils.setField(foodService, "blobStore", blobStore);
+    ReflectionTestUtils.setField(foodService, "foodRepository", foodRepository);
+    ReflectionTestUtils.setField(foodService, "searchIndex", new FoodSearchIndex());
+    ReflectionTestUtils.setField(foodService, "objectMapper", new ObjectMapper());
+    ReflectionTestUtils.setField(foodService, "imagePipeline",
+            new ImageDerivativePipeline(blobStore, new TaskThreads(false, 1), "thumb=16x16", 0.8f, 1_000_000, 1, 10));
+    ReflectionTestUtils.setField(foodService, "mongoTemplate", mongoTemplate);
+    ReflectionTestUtils.setField(foodService, "maxUploadBytes", 1_000_000L);
+    ReflectionTestUtils.setField(foodService, "presignTtlSeconds", 300L);
+    ReflectionTestUtils.setField(foodService, "confirmWindowSeconds", 3600L);
+}
+
+@Test
+void presigningRecordsTheKeyAndSignsAnUploadUnderThePendingPrefix() {
+    FoodImageUploadResponse upload = presign();
+
+    assertThat(upload.getKey()).matches("[0-9a-f-]{36}\\.png");
+    assertThat(upload.getUploadUrl()).startsWith("http://localhost:8080/api/blobs/pending/" + upload.getKey() + "?");
+    Map<String, String> params = queryParams(upload.getUploadUrl());
+    assertThat(blobStore.verifyUpload(BlobStore.PENDING_PREFIX + upload.getKey(), "image/png", png.length,
+            Long.parseLong(params.get("expires")), params.get("signature"))).isTrue();
+
+    PendingUploadEntity pending = mongoTemplate.findById(upload.getKey(), PendingUploadEntity.class);
+    assertThat(pending).isNotNull();
+    assertThat(pending.getContentType()).isEqualTo("image/png");
+    assertThat(pending.getExpiresAt()).isAfter(upload.getExpiresAt());
+}
+
+@Test
+void confirmingMovesTheImageOutOfPendingAndCreatesTheFood() throws IOException {
+    FoodImageUploadResponse upload = presign();
+    uploadPending(upload.getKey());
+
+    FoodResponse food = foodService.confirmFood(confirm(upload.getKey()));
+
+    assertThat(food.getImageUrl()).isEqualTo(blobStore.url(upload.getKey()));
+    assertThat(blobStore.stat(upload.getKey())).isNotNull();
+    assertThat(blobStore.stat(BlobStore.PENDING_PREFIX + upload.getKey())).isNull();
+    assertThat(foodRepository.findById(food.getId())).isPresent();
+    assertThat(mongoTemplate.findById(upload.getKey(), PendingUploadEntity.class)).isNull();
+}
+
+@Test
+void aKeyIsOnlyConfirmedOnce() throws IOException {
+    FoodImageUploadResponse upload = presign();
+    uploadPending(upload.getKey());
+    foodService.confirmFood(confirm(upload.getKey()));
+
+    // The upload URL is still valid, so the same key can be uploaded to again
+    uploadPending(upload.getKey());
+
+    assertThatThrownBy(() -> foodService.confirmFood(confirm(upload.getKey())))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                    ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    assertThat(foodRepository.count()).isEqualTo(1);
+}
+
+@Test
+void anotherFoodsImageCannotBeConfirmed() throws IOException {
+    String key = UUID.randomUUID() + ".png";
+    blobStore.put(key, "image/png", png.length, null, new ByteArrayInputStream(png));
+
+    assertThatThrownBy(() -> foodService.confirmFood(confirm(key)))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                    ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    assertThat(foodRepository.count()).isZero();
+}
+
+@Test
+void aKeyThatWasNeverIssuedIsRefused() throws IOException {
+    String key = UUID.randomUUID() + ".png";
+    uploadPending(key);
+
+    assertThatThrownBy(() -> foodService.confirmFood(confirm(key)))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                    ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    // Left in place for the lifecycle rule to remove
+    assertThat(blobStore.stat(BlobStore.PENDING_PREFIX + key)).isNotNull();
+    assertThat(blobStore.stat(key)).isNull();
+}
+
+@Test
+void anExpiredKeyIsRefused() throws IOException {
+    FoodImageUploadResponse upload = presign();
+    uploadPending(upload.getKey());
+    // MongoDB's TTL monitor runs once a minute, so an expired entry can still be there
+    mongoTemplate.updateFirst(new Query(where("key").is(upload.getKey())),
+            new Update().set("expiresAt", Instant.now().minusSeconds(1)), PendingUploadEntity.class);
+
+    assertThatThrownBy(() -> foodService.confirmFood(confirm(upload.getKey())))
+            .isInstanceOfSatisfying(ResponseStatusException.class,
+                    ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+}
+
+private FoodImageUploadResponse presign() {
+    return foodService.presignImageUpload(FoodImageUploadRequest.builder().contentType("image/png").contentLength(png.length).build());
+}
+
+// What BlobController does with the client's PUT to the presigned URL
+private void uploadPending(String key) throws IOException {
+    blobStore.put(BlobStore.PENDING_PREFIX + key, "image/png", png.length, null, new ByteArrayInputStream(png));
+}
+
+private static FoodConfirmRequest confirm(String key) {
+    return FoodConfirmRequest.builder()
+            .imageKey(key)
+            .food(new FoodRequest("Jollof Rice", "Smoky party rice", 25, "Rice"))
+            .build();
+}
+
+private static Map<String, String> queryParams(String url) {
+    Map<String, String> params = new HashMap<>();
+    for (String pair : URI.create(url).getRawQuery().split("&")) {
+        String[] parts = pair.split("=", 2);
+        params.put(parts[0], parts[1]);
+    }
+    return params;
+}
+}
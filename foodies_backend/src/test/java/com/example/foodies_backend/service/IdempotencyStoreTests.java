@@ -0,0 +1,99 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.IdempotencyKeyEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs against a real mongod, see TestMongo
+@RequiresMongo
+class IdempotencyStoreTests {
+
+private static final Map<String, String> REQUEST = Map.of("item", "jollof");
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+private static IdempotencyStore store;
+
+private final AtomicInteger runs = new AtomicInteger();
+
+@BeforeAll
+static void connect() {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+    store = new IdempotencyStore(mongoTemplate, new ObjectMapper(), new TaskThreads(false, 1), 2000, 60_000);
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void clearKeys() {
+    mongoTemplate.remove(new Query(), IdempotencyKeyEntity.class);
+}
+
+@Test
+void aCompletedResponseIsReplayedWithoutRunningAgain() throws Exception {
+    assertThat(execute("key-1", () -> respond("https://checkout.test/1"))).isEqualTo("https://checkout.test/1");
+    assertThat(execute("key-1", () -> respond("https://checkout.test/2"))).isEqualTo("https://checkout.test/1");
+
+    assertThat(runs).hasValue(1);
+}
+
+@Test
+void aServerErrorIsNotStoredSoARetryRunsAgain() throws Exception {
+    assertThatThrownBy(() -> execute("key-1", () -> CompletableFuture.failedFuture(
+            new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Payments are unavailable"))))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(ResponseStatusException.class);
+    assertThat(mongoTemplate.findById("test:key-1", IdempotencyKeyEntity.class)).isNull();
+
+    assertThat(execute("key-1", () -> respond("https://checkout.test/1"))).isEqualTo("https://checkout.test/1");
+}
+
+@Test
+void aResponseThatIsNotReplayableIsReturnedButNotStored() throws Exception {
+    // No checkout link: the caller sees it, a retry must not
+    assertThat(execute("key-1", () -> respond(null))).isNull();
+    assertThat(mongoTemplate.findById("test:key-1", IdempotencyKeyEntity.class)).isNull();
+
+    assertThat(execute("key-1", () -> respond("https://checkout.test/1"))).isEqualTo("https://checkout.test/1");
+    assertThat(runs).hasValue(2);
+}
+
+private String execute(String key, Supplier<CompletableFuture<Checkout>> operation) throws Exception {
+    return store.execute("test", key, REQUEST, Checkout.class, operation, checkout -> checkout.url() != null)
+            .get(5, TimeUnit.SECONDS)
+            .url();
+}
+
+private CompletableFuture<Checkout> respond(String url) {
+    runs.incrementAndGet();
+    return CompletableFuture.completedFuture(new Checkout(url));
+}
+
+record Checkout(String url) {
+}
+}
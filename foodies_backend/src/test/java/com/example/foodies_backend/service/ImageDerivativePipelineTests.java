@@ -0,0 +1,49 @@
+package com.example.foodies_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDerivativePipelineTests {
+
+@Test
+void variantsKeepTheirConfiguredOrder() {
+    Map<String, ImageDerivativePipeline.Size> variants = ImageDerivativePipeline.parseVariants("thumb=160x160, card = 480X360");
+
+    assertThat(variants).containsExactly(
+            Map.entry("thumb", new ImageDerivativePipeline.Size(160, 160)),
+            Map.entry("card", new ImageDerivativePipeline.Size(480, 360)));
+}
+
+@Test
+void coverCropsTheOverflowAroundTheCenter() {
+    // A wide image: red left third, green middle, blue right third
+    BufferedImage source = new BufferedImage(300, 100, BufferedImage.TYPE_INT_RGB);
+    for (int x = 0; x < 300; x++) {
+        int rgb = x < 100 ? Color.RED.getRGB() : x < 200 ? Color.GREEN.getRGB() : Color.BLUE.getRGB();
+        for (int y = 0; y < 100; y++) {
+            source.setRGB(x, y, rgb);
+        }
+    }
+
+    BufferedImage square = ImageDerivativePipeline.cover(source, new ImageDerivativePipeline.Size(50, 50));
+
+    assertThat(square.getWidth()).isEqualTo(50);
+    assertThat(square.getHeight()).isEqualTo(50);
+    assertThat(new Color(square.getRGB(25, 25))).isEqualTo(Color.GREEN);
+    assertThat(new Color(square.getRGB(2, 25)).getGreen()).isGreaterThan(200);
+}
+
+@Test
+void transparentPixelsBecomeWhite() {
+    BufferedImage source = new BufferedImage(20, 20, BufferedImage.TYPE_INT_ARGB);
+
+    BufferedImage rendered = ImageDerivativePipeline.cover(source, new ImageDerivativePipeline.Size(10, 10));
+
+    assertThat(new Color(rendered.getRGB(5, 5))).isEqualTo(Color.WHITE);
+}
+}
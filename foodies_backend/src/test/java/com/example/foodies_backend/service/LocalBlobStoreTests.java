@@ -0,0 +1,88 @@
+package com.example.foodies_backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalBlobStoreTests {
+
+@TempDir
+Path root;
+
+private LocalBlobStore store;
+
+@BeforeEach
+void createStore() throws IOException {
+    store = new LocalBlobStore(root.toString(), "http://localhost:8080/", "test-key");
+}
+
+@Test
+void storedBlobsCanBeReadBack() throws IOException {
+    byte[] content = {1, 2, 3, 4};
+    store.put("a.png", "image/png", content.length, null, new ByteArrayInputStream(content));
+
+    BlobStore.BlobInfo info = store.stat("a.png");
+    assertThat(info.size()).isEqualTo(4);
+    assertThat(info.contentType()).isEqualTo("image/png");
+    try (InputStream in = store.open("a.png")) {
+        assertThat(in.readAllBytes()).isEqualTo(content);
+    }
+    assertThat(store.url("a.png")).isEqualTo("http://localhost:8080/api/blobs/a.png");
+}
+
+@Test
+void shortStreamsLeaveNothingBehind() throws IOException {
+    assertThatThrownBy(() -> store.put("b.jpg", "image/jpeg", 10, null, new ByteArrayInputStream(new byte[3])))
+            .isInstanceOf(IOException.class);
+
+    assertThat(store.stat("b.jpg")).isNull();
+    try (var files = Files.list(root)) {
+        assertThat(files).isEmpty();
+    }
+}
+
+@Test
+void pendingBlobsAreMovedIntoPlace() throws IOException {
+    byte[] content = {1, 2, 3, 4};
+    store.put("pending/c.png", "image/png", content.length, null, new ByteArrayInputStream(content));
+    assertThat(store.stat("c.png")).isNull();
+
+    store.move("pending/c.png", "c.png");
+
+    assertThat(store.stat("pending/c.png")).isNull();
+    assertThat(store.stat("c.png").size()).isEqualTo(4);
+}
+
+@Test
+void keysCannotLeaveTheRoot() {
+    assertThat(store.path("../etc/passwd")).isNull();
+    assertThat(store.path(".upload-1.tmp")).isNull();
+    assertThat(store.stat("../x.jpg")).isNull();
+    assertThat(store.path("pending/../x.jpg")).isNull();
+    assertThat(store.path("pending/pending/x.jpg")).isNull();
+}
+
+@Test
+void uploadSignaturesCoverKeyTypeAndLength() {
+    BlobStore.PresignedUpload upload = store.presignUpload("c.jpg", "image/jpeg", 100, Duration.ofMinutes(5));
+    long expires = upload.expiresAt().getEpochSecond();
+    String signature = upload.url().substring(upload.url().indexOf("signature=") + "signature=".length());
+
+    assertThat(store.verifyUpload("c.jpg", "image/jpeg", 100, expires, signature)).isTrue();
+    assertThat(store.verifyUpload("c.jpg", "image/jpeg", 101, expires, signature)).isFalse();
+    assertThat(store.verifyUpload("c.jpg", "text/html", 100, expires, signature)).isFalse();
+    assertThat(store.verifyUpload("d.jpg", "image/jpeg", 100, expires, signature)).isFalse();
+    assertThat(store.verifyUpload("c.jpg", "image/jpeg", 100, Instant.now().minusSeconds(1).getEpochSecond(), signature)).isFalse();
+}
+}
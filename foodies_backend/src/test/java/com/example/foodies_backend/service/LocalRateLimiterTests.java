@@ -0,0 +1,78 @@
+package com.example.foodies_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Time only moves when a test advances the clock; the per-check cost is measured by LocalRateLimiterBenchmark
+class LocalRateLimiterTests {
+
+private final AtomicLong nanos = new AtomicLong();
+private final LocalRateLimiter limiter = new LocalRateLimiter(10_000, nanos::get);
+
+@Test
+void aBucketAllowsItsCapacityThenTellsHowLongToWait() {
+    for (int i = 0; i < 3; i++) {
+        assertThat(limiter.tryAcquire("ip:1.2.3.4", 3, 1.0 / 60)).isZero();
+    }
+
+    long wait = limiter.tryAcquire("ip:1.2.3.4", 3, 1.0 / 60);
+
+    // One token per minute
+    assertThat(wait).isEqualTo(60_000L);
+
+    advanceMillis(45_000);
+    assertThat(limiter.tryAcquire("ip:1.2.3.4", 3, 1.0 / 60)).isEqualTo(15_000L);
+}
+
+@Test
+void keysHaveTheirOwnBuckets() {
+    assertThat(limiter.tryAcquire("email:a@foodies.test", 1, 1)).isZero();
+    assertThat(limiter.tryAcquire("email:a@foodies.test", 1, 1)).isPositive();
+    assertThat(limiter.tryAcquire("email:b@foodies.test", 1, 1)).isZero();
+}
+
+@Test
+void tokensComeBackOverTime() {
+    assertThat(limiter.tryAcquire("ip:5.6.7.8", 1, 20)).isZero();
+    assertThat(limiter.tryAcquire("ip:5.6.7.8", 1, 20)).isPositive();
+
+    advanceMillis(49);
+    assertThat(limiter.tryAcquire("ip:5.6.7.8", 1, 20)).isPositive();
+
+    advanceMillis(51); // Two tokens' worth at 20 per second in all, capped at the capacity of one
+
+    assertThat(limiter.tryAcquire("ip:5.6.7.8", 1, 20)).isZero();
+    assertThat(limiter.tryAcquire("ip:5.6.7.8", 1, 20)).isPositive();
+}
+
+@Test
+void aFloodOfNewKeysStaysBounded() {
+    LocalRateLimiter small = new LocalRateLimiter(64 * 16, nanos::get);
+    for (int i = 0; i < 100_000; i++) {
+        small.tryAcquire("ip:10.0." + (i >> 8) + "." + (i & 255), 5, 0.1);
+    }
+    // Still answering, and a key seen for the first time gets a full bucket
+    assertThat(small.tryAcquire("ip:192.168.0.1", 5, 0.1)).isZero();
+}
+
+@Test
+void refilledBucketsAreEvictedBeforeBusyOnes() {
+    LocalRateLimiter small = new LocalRateLimiter(64 * 16, nanos::get);
+    assertThat(small.tryAcquire("ip:busy", 1, 1.0 / 3600)).isZero();
+    // Enough new keys to fill every stripe several times over, while the busy key's bucket stays empty
+    for (int i = 0; i < 64 * 16 * 4; i++) {
+        small.tryAcquire("ip:10.2." + (i >> 8) + "." + (i & 255), 5, 1000);
+        advanceMillis(1);
+    }
+
+    // Still limited: only full buckets were dropped to make room
+    assertThat(small.tryAcquire("ip:busy", 1, 1.0 / 3600)).isPositive();
+}
+
+private void advanceMillis(long millis) {
+    nanos.addAndGet(millis * 1_000_000);
+}
+}
@@ -0,0 +1,266 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.entity.OrderEntity;
+import com.mongodb.client.MongoClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+// Runs the reconciler against a local stub of the Paystack transaction listing and a real mongod (see TestMongo)
+@RequiresMongo
+class PaymentReconcilerTests {
+
+private static final Duration MIN_AGE = Duration.ofMinutes(10);
+private static final Duration STALE_AFTER = Duration.ofDays(1);
+
+// The listing comes back in two pages
+private static final String PAGE_1 = "{\"status\":true,\"data\":["
+        + "{\"reference\":\"ref-paid\",\"status\":\"success\",\"amount\":250000},"
+        + "{\"reference\":\"ref-short\",\"status\":\"success\",\"amount\":1000}],"
+        + "\"meta\":{\"page\":1,\"pageCount\":2}}";
+private static final String PAGE_2 = "{\"status\":true,\"data\":["
+        + "{\"reference\":\"ref-declined\",\"status\":\"failed\",\"amount\":250000},"
+        + "{\"reference\":\"ref-abandoned\",\"status\":\"abandoned\",\"amount\":250000},"
+        + "{\"reference\":\"ref-ongoing\",\"status\":\"ongoing\",\"amount\":250000}],"
+        + "\"meta\":{\"page\":2,\"pageCount\":2}}";
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+
+private HttpServer server;
+private PaystackClient paystackClient;
+private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+private final List<String> clearedCarts = new CopyOnWriteArrayList<>();
+private PaymentReconciler reconciler;
+
+@BeforeAll
+static void connect() {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void setUp() throws IOException {
+    mongoTemplate.remove(new Query(), OrderEntity.class);
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/transaction", this::list);
+    server.start();
+    paystackClient = new PaystackClient(new TaskThreads(false, 1), "sk_test", "http://127.0.0.1:" + server.getAddress().getPort(),
+            1000, 2000, 10, 2, 100, 1, 10, 5, 60_000);
+    reconciler = newReconciler(mongoTemplate);
+}
+
+@AfterEach
+void tearDown() {
+    paystackClient.shutdown();
+    server.stop(0);
+}
+
+@Test
+void settlesEachOrderFromTheListing() {
+    Instant old = Instant.now().minus(MIN_AGE).minusSeconds(60);
+    Instant veryOld = Instant.now().minus(STALE_AFTER).minusSeconds(60);
+    insert("paid", "ref-paid", "user-1", old);
+    insert("short", "ref-short", "user-2", old);
+    insert("declined", "ref-declined", "user-3", old);
+    insert("abandoned-stale", "ref-abandoned", "user-4", veryOld);
+    insert("ongoing-recent", "ref-ongoing", "user-5", old);
+    insert("unknown", "ref-unknown", "user-6", old);
+    insert("unknown-stale", "ref-unknown-2", "user-8", veryOld);
+    insert("too-new", "ref-paid-later", "user-7", Instant.now());
+
+    reconciler.reconcile();
+
+    assertThat(status("paid")).isEqualTo("paid");
+    assertThat(mongoTemplate.findById("paid", OrderEntity.class).getOrderStatus()).isEqualTo("preparing");
+    assertThat(clearedCarts).containsExactly("user-1");
+    // Paid the wrong amount: left for a human
+    assertThat(status("short")).isEqualTo("pending");
+    assertThat(status("declined")).isEqualTo("failed");
+    // Unfinished and past the stale threshold
+    assertThat(status("abandoned-stale")).isEqualTo("failed");
+    // Unfinished but not stale yet, or not in the listing at all
+    assertThat(status("ongoing-recent")).isEqualTo("pending");
+    assertThat(status("unknown")).isEqualTo("pending");
+    assertThat(status("unknown-stale")).isEqualTo("pending");
+    // Younger than the minimum age: the webhook may still come
+    assertThat(status("too-new")).isEqualTo("pending");
+
+    assertThat(meterRegistry.get("foodies.payments.reconciled").counter().count()).isEqualTo(3);
+    assertThat(meterRegistry.get("foodies.payments.mismatched").gauge().value()).isEqualTo(1);
+    // Only the one left unsettled; the stale abandoned checkout was closed
+    assertThat(meterRegistry.get("foodies.payments.stale").gauge().value()).isEqualTo(1);
+}
+
+@Test
+void unsettledOrdersAreCountedOncePerRunNotOnEveryRun() {
+    Instant old = Instant.now().minus(MIN_AGE).minusSeconds(60);
+    Instant veryOld = Instant.now().minus(STALE_AFTER).minusSeconds(60);
+    insert("short", "ref-short", "user-1", old);
+    insert("unknown-stale", "ref-unknown", "user-2", veryOld);
+
+    for (int run = 0; run < 3; run++) {
+        reconciler.reconcile();
+    }
+
+    assertThat(meterRegistry.get("foodies.payments.mismatched").gauge().value()).isEqualTo(1);
+    assertThat(meterRegistry.get("foodies.payments.stale").gauge().value()).isEqualTo(1);
+
+    mongoTemplate.updateFirst(new Query(where("id").is("unknown-stale")), new Update().set("paymentStatus", "paid"), OrderEntity.class);
+    reconciler.reconcile();
+
+    assertThat(meterRegistry.get("foodies.payments.stale").gauge().value()).isZero();
+}
+
+@Test
+void aCartIsOnlyClearedWhenThisRunPaidTheOrder() {
+    Instant old = Instant.now().minus(MIN_AGE).minusSeconds(60);
+    insert("paid", "ref-paid", "user-1", old);
+    // The webhook marks the order paid right after the reconciler has read its page
+    MongoTemplate racingWebhook = new MongoTemplate(client, TestMongo.DATABASE) {
+        @Override
+        public <T> List<T> find(Query query, Class<T> entityClass) {
+            List<T> found = super.find(query, entityClass);
+            updateFirst(new Query(where("id").is("paid")), new Update().set("paymentStatus", "paid"), OrderEntity.class);
+            return found;
+        }
+    };
+
+    newReconciler(racingWebhook).reconcile();
+
+    assertThat(status("paid")).isEqualTo("paid");
+    // The webhook cleared the cart; the user may have started a new one since
+    assertThat(clearedCarts).isEmpty();
+    assertThat(meterRegistry.get("foodies.payments.reconciled").counter().count()).isZero();
+}
+
+@Test
+void closesOldOrdersThatNeverGotAPaymentReference() {
+    Instant old = Instant.now().minus(MIN_AGE).minusSeconds(60);
+    insert("no-reference", null, "user-1", old);
+    insert("no-reference-legacy", null, "user-2", null);
+    insert("no-reference-recent", null, "user-3", Instant.now());
+
+    reconciler.reconcile();
+
+    assertThat(status("no-reference")).isEqualTo("failed");
+    assertThat(status("no-reference-legacy")).isEqualTo("failed");
+    // Its checkout may still be waiting for Paystack
+    assertThat(status("no-reference-recent")).isEqualTo("pending");
+    assertThat(meterRegistry.get("foodies.payments.uninitialized").counter().count()).isEqualTo(2);
+    assertThat(clearedCarts).isEmpty();
+}
+
+@Test
+void paidOrdersAreNotTouchedAgain() {
+    Instant old = Instant.now().minus(MIN_AGE).minusSeconds(60);
+    OrderEntity paid = order("paid", "ref-declined", "user-1", old);
+    paid.setPaymentStatus("paid");
+    mongoTemplate.insert(paid);
+
+    reconciler.reconcile();
+
+    assertThat(status("paid")).isEqualTo("paid");
+    assertThat(meterRegistry.get("foodies.payments.reconciled").counter().count()).isZero();
+}
+
+// Pages of two orders, so the walk over unpaid orders takes several pages too
+private PaymentReconciler newReconciler(MongoTemplate template) {
+    return new PaymentReconciler(paystackClient, template, new RecordingCartStore(), meterRegistry,
+            2, 10, MIN_AGE.toMillis(), STALE_AFTER.toMillis(), 7);
+}
+
+private void insert(String id, String reference, String userId, Instant createdAt) {
+    mongoTemplate.insert(order(id, reference, userId, createdAt));
+}
+
+private static OrderEntity order(String id, String reference, String userId, Instant createdAt) {
+    return OrderEntity.builder()
+            .id(id)
+            .userId(userId)
+            .amount(2500)
+            .paymentReference(reference)
+            .paymentStatus("pending")
+            .orderStatus("placed")
+            .createdAt(createdAt)
+            .build();
+}
+
+private static String status(String orderId) {
+    return mongoTemplate.findById(orderId, OrderEntity.class).getPaymentStatus();
+}
+
+private void list(HttpExchange exchange) throws IOException {
+    String query = exchange.getRequestURI().getRawQuery();
+    byte[] body = (query != null && query.contains("page=2") ? PAGE_2 : PAGE_1).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+    } finally {
+        exchange.close();
+    }
+}
+
+// Only records which carts were cleared
+private class RecordingCartStore implements CartStore {
+
+    @Override
+    public Optional<CartEntity> find(String userId) {
+        return Optional.empty();
+    }
+
+    @Override
+    public CartEntity applyChanges(String userId, Map<String, Integer> deltas, Map<String, Integer> quantities, boolean upsert) {
+        return null;
+    }
+
+    @Override
+    public void delete(String userId) {
+        clearedCarts.add(userId);
+    }
+
+    @Override
+    public void deleteAll(Collection<String> userIds) {
+        clearedCarts.addAll(userIds);
+    }
+
+    @Override
+    public void flush(String userId) {
+    }
+}
+}
@@ -0,0 +1,264 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.config.TaskThreads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs the client against a local stub of the Paystack API that can answer slowly or with errors
+class PaystackClientTests {
+
+private static final long CALL_TIMEOUT_MS = 300;
+
+private static final String VERIFIED = "{\"status\":true,\"data\":{\"reference\":\"ref-1\",\"status\":\"success\",\"amount\":5000}}";
+private static final String INITIALIZED = "{\"status\":true,\"data\":{\"authorization_url\":\"https://checkout.test/abc\",\"reference\":\"ref-1\"}}";
+
+private HttpServer server;
+private final AtomicInteger hits = new AtomicInteger();
+// Decides the reply for the n-th request (1-based)
+private volatile IntFunction<StubReply> replies;
+private volatile String lastQuery;
+private PaystackClient client;
+
+@BeforeEach
+void startStub() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/", this::reply);
+    server.start();
+}
+
+@AfterEach
+void stopStub() {
+    if (client != null) {
+        client.shutdown();
+    }
+    server.stop(0);
+}
+
+@Test
+void verifyReturnsTheTransactionStatus() throws Exception {
+    replies = n -> new StubReply(200, VERIFIED, 0);
+    client = newClient(3, 5);
+
+    PaystackClient.Verification verification = client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS);
+
+    assertThat(verification.successful()).isTrue();
+    assertThat(verification.amountInKobo()).isEqualTo(5000);
+    assertThat(hits).hasValue(1);
+}
+
+@Test
+void verifyIsRetriedAfterATimeout() throws Exception {
+    replies = n -> n == 1 ? new StubReply(200, VERIFIED, CALL_TIMEOUT_MS * 3) : new StubReply(200, VERIFIED, 0);
+    client = newClient(3, 5);
+
+    PaystackClient.Verification verification = client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS);
+
+    assertThat(verification.successful()).isTrue();
+    assertThat(hits).hasValue(2);
+}
+
+@Test
+void verifyGivesUpAfterTheLastAttempt() {
+    replies = n -> new StubReply(503, "{\"status\":false}", 0);
+    client = newClient(3, 10);
+
+    assertThatThrownBy(() -> client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(PaystackClient.PaystackUnavailableException.class);
+    assertThat(hits).hasValue(3);
+}
+
+@Test
+void listingReadsTransactionsAndPageCount() throws Exception {
+    replies = n -> new StubReply(200, "{\"status\":true,\"data\":["
+            + "{\"reference\":\"ref-1\",\"status\":\"success\",\"amount\":5000},"
+            + "{\"reference\":\"ref-2\",\"status\":\"abandoned\",\"amount\":1200}],"
+            + "\"meta\":{\"page\":1,\"pageCount\":3}}", 0);
+    client = newClient(3, 5);
+
+    PaystackClient.TransactionPage page = client.listTransactions(Instant.now().minusSeconds(3600), Instant.now(), 1, 100)
+            .get(5, TimeUnit.SECONDS);
+
+    assertThat(page.transactions()).extracting(PaystackClient.Verification::reference).containsExactly("ref-1", "ref-2");
+    assertThat(page.transactions().get(0).successful()).isTrue();
+    assertThat(page.hasNext()).isTrue();
+    assertThat(lastQuery).contains("page=1").contains("perPage=100").contains("from=");
+}
+
+@Test
+void initializeIsNeverRetried() {
+    replies = n -> new StubReply(200, INITIALIZED, CALL_TIMEOUT_MS * 3);
+    client = newClient(3, 5);
+
+    assertThatThrownBy(() -> client.initializeTransaction("a@b.test", 5000).get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(PaystackClient.PaystackUnavailableException.class);
+    assertThat(hits).hasValue(1);
+}
+
+@Test
+void rejectedRequestsAreNotRetried() {
+    replies = n -> new StubReply(400, "{\"status\":false,\"message\":\"Invalid key\"}", 0);
+    client = newClient(3, 1);
+
+    assertThatThrownBy(() -> client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS))
+            .cause()
+            .isInstanceOf(PaystackClient.PaystackException.class)
+            .isNotInstanceOf(PaystackClient.PaystackUnavailableException.class)
+            .hasMessageContaining("Invalid key");
+    assertThat(hits).hasValue(1);
+    assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+}
+
+@Test
+void openCircuitFailsFastWithoutCallingPaystack() {
+    replies = n -> new StubReply(500, "{\"status\":false}", 0);
+    client = newClient(1, 2);
+
+    for (int i = 0; i < 2; i++) {
+        assertThatThrownBy(() -> client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(PaystackClient.PaystackUnavailableException.class);
+    }
+    assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+    long start = System.nanoTime();
+    assertThatThrownBy(() -> client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(PaystackClient.PaystackUnavailableException.class)
+            .hasMessageContaining("circuit is open");
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(CALL_TIMEOUT_MS);
+    assertThat(hits).hasValue(2);
+}
+
+@Test
+void aFullCallbackQueueFailsTheCallInsteadOfLeavingItHanging() throws Exception {
+    replies = n -> new StubReply(200, VERIFIED, 50);
+    client = newClient(1, 100, 1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+        // Holds the only callback thread: dependents attached before completion run on it
+        CompletableFuture<Void> busy = client.verifyTransaction("ref-1").thenRun(() -> awaitQuietly(release));
+        waitForHits(1);
+        Thread.sleep(CALL_TIMEOUT_MS / 2);
+        CompletableFuture<PaystackClient.Verification> queued = client.verifyTransaction("ref-1");
+        Thread.sleep(CALL_TIMEOUT_MS / 2); // Its response now takes the only queue slot
+        CompletableFuture<PaystackClient.Verification> dropped = client.verifyTransaction("ref-1");
+
+        assertThatThrownBy(() -> dropped.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .cause()
+                .isInstanceOf(PaystackClient.PaystackUnavailableException.class)
+                .hasMessageContaining("callback queue is full");
+
+        release.countDown();
+        assertThat(queued.get(5, TimeUnit.SECONDS).successful()).isTrue();
+        busy.get(5, TimeUnit.SECONDS);
+    } finally {
+        release.countDown();
+    }
+}
+
+@Test
+void aHalfOpenTrialDroppedByAFullCallbackQueueStillReportsBack() throws Exception {
+    replies = n -> n == 1 ? new StubReply(500, "{\"status\":false}", 0) : new StubReply(200, VERIFIED, 0);
+    client = newClient(1, 1, 1, 1, 200);
+    assertThatThrownBy(() -> client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(PaystackClient.PaystackUnavailableException.class);
+    assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+    Thread.sleep(300);
+
+    // Takes the only callback thread and the only queue slot, so the trial's response is refused
+    ThreadPoolExecutor callbacks = (ThreadPoolExecutor) ReflectionTestUtils.getField(client, "callbackExecutor");
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+        callbacks.execute(() -> awaitQuietly(release));
+        callbacks.execute(() -> awaitQuietly(release));
+
+        assertThatThrownBy(() -> client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS))
+                .cause()
+                .hasMessageContaining("callback queue is full");
+        assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+    } finally {
+        release.countDown();
+    }
+
+    // The failed trial re-opened the circuit, so the next one is let through once the open time has passed
+    Thread.sleep(300);
+    assertThat(client.verifyTransaction("ref-1").get(5, TimeUnit.SECONDS).successful()).isTrue();
+    assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+}
+
+private static void awaitQuietly(CountDownLatch latch) {
+    try {
+        latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+    }
+}
+
+private void waitForHits(int count) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (hits.get() < count && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+    }
+}
+
+private PaystackClient newClient(int maxAttempts, int failureThreshold) {
+    return newClient(maxAttempts, failureThreshold, 2, 100);
+}
+
+private PaystackClient newClient(int maxAttempts, int failureThreshold, int callbackThreads, int callbackQueueSize) {
+    return newClient(maxAttempts, failureThreshold, callbackThreads, callbackQueueSize, 60_000);
+}
+
+private PaystackClient newClient(int maxAttempts, int failureThreshold, int callbackThreads, int callbackQueueSize,
+                                 long breakerOpenMillis) {
+    return new PaystackClient(new TaskThreads(false, 1), "sk_test", "http://127.0.0.1:" + server.getAddress().getPort(),
+            1000, CALL_TIMEOUT_MS, 10, callbackThreads, callbackQueueSize, maxAttempts, 10, failureThreshold, breakerOpenMillis);
+}
+
+private void reply(HttpExchange exchange) throws IOException {
+    lastQuery = exchange.getRequestURI().getRawQuery();
+    StubReply reply = replies.apply(hits.incrementAndGet());
+    try {
+        if (reply.delayMillis() > 0) {
+            Thread.sleep(reply.delayMillis());
+        }
+        byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(reply.status(), body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+    } catch (IOException ex) {
+        // The client gave up on this request
+    } finally {
+        exchange.close();
+    }
+}
+
+private record StubReply(int status, String body, long delayMillis) {
+}
+}
@@ -0,0 +1,122 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.entity.RefreshTokenEntity;
+import com.mongodb.client.MongoClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Runs against a real mongod, see TestMongo
+@RequiresMongo
+class RefreshTokenServiceTests {
+
+private static final AppUserDetails USER = new AppUserDetails("user-1", "a@foodies.test", "", Collections.emptyList());
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+private static RefreshTokenService tokens;
+private static RefreshTokenService graceful;
+
+@BeforeAll
+static void connect() {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+    tokens = new RefreshTokenService(mongoTemplate, 60_000, 0);
+    graceful = new RefreshTokenService(mongoTemplate, 60_000, 10_000);
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void clearTokens() {
+    mongoTemplate.remove(new Query(), RefreshTokenEntity.class);
+}
+
+@Test
+void rotationHandsOutANewTokenForTheSameUser() {
+    String first = tokens.issue(USER);
+
+    RefreshTokenService.Rotation rotation = tokens.rotate(first);
+
+    assertThat(rotation.refreshToken()).isNotEqualTo(first);
+    assertThat(rotation.user().getId()).isEqualTo("user-1");
+    assertThat(rotation.user().getUsername()).isEqualTo("a@foodies.test");
+    assertThat(tokens.rotate(rotation.refreshToken()).refreshToken()).isNotNull();
+}
+
+@Test
+void tokensAreStoredHashed() {
+    String token = tokens.issue(USER);
+
+    assertThat(mongoTemplate.findById(token, RefreshTokenEntity.class)).isNull();
+    assertThat(mongoTemplate.findById(RefreshTokenService.hash(token), RefreshTokenEntity.class)).isNotNull();
+}
+
+@Test
+void reusingAReplacedTokenRevokesTheFamily() {
+    String first = tokens.issue(USER);
+    String second = tokens.rotate(first).refreshToken();
+
+    assertThatThrownBy(() -> tokens.rotate(first)).isInstanceOf(ResponseStatusException.class);
+    // The legitimate holder of the newest token is signed out too
+    assertThatThrownBy(() -> tokens.rotate(second)).isInstanceOf(ResponseStatusException.class);
+}
+
+@Test
+void concurrentRefreshesWithOneTokenRotateItOnceAndKeepTheSession() throws Exception {
+    String token = graceful.issue(USER);
+    List<String> rotated = new CopyOnWriteArrayList<>();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+        List<Callable<Boolean>> calls = IntStream.range(0, 8).<Callable<Boolean>>mapToObj(i -> () -> {
+            try {
+                rotated.add(graceful.rotate(token).refreshToken());
+                return true;
+            } catch (ResponseStatusException ex) {
+                return false;
+            }
+        }).toList();
+        long successes = 0;
+        for (Future<Boolean> result : pool.invokeAll(calls)) {
+            successes += result.get() ? 1 : 0;
+        }
+        assertThat(successes).isEqualTo(1);
+        // The losers of the race did not revoke the winner's new token
+        assertThat(graceful.rotate(rotated.get(0)).refreshToken()).isNotNull();
+    } finally {
+        pool.shutdown();
+    }
+}
+
+@Test
+void revokingAllSessionsInvalidatesEveryFamily() {
+    String phone = tokens.issue(USER);
+    String laptop = tokens.issue(USER);
+
+    tokens.revokeAll("user-1");
+
+    assertThatThrownBy(() -> tokens.rotate(phone)).isInstanceOf(ResponseStatusException.class);
+    assertThatThrownBy(() -> tokens.rotate(laptop)).isInstanceOf(ResponseStatusException.class);
+}
+}
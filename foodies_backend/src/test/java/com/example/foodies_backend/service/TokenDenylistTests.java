@@ -0,0 +1,93 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.RevokedTokenEntity;
+import com.mongodb.client.MongoClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against a real mongod, see TestMongo
+@RequiresMongo
+class TokenDenylistTests {
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+
+@BeforeAll
+static void connect() {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void clearTokens() {
+    mongoTemplate.remove(new Query(), RevokedTokenEntity.class);
+}
+
+@Test
+void aRevocationOnOneNodeReachesTheOthersAtTheirNextPoll() {
+    TokenDenylist here = newNode();
+    TokenDenylist there = newNode();
+    try {
+        here.revoke("jti-1", "user-1", Instant.now().plusSeconds(600));
+
+        assertThat(here.isRevoked("jti-1")).isTrue();
+        there.poll();
+        assertThat(there.isRevoked("jti-1")).isTrue();
+        assertThat(there.isRevoked("jti-2")).isFalse();
+    } finally {
+        here.stop();
+        there.stop();
+    }
+}
+
+@Test
+void aRestartedNodeLoadsExistingRevocations() {
+    TokenDenylist before = newNode();
+    before.revoke("jti-1", "user-1", Instant.now().plusSeconds(600));
+    before.stop();
+
+    TokenDenylist after = newNode();
+    try {
+        assertThat(after.isRevoked("jti-1")).isTrue();
+    } finally {
+        after.stop();
+    }
+}
+
+@Test
+void expiredTokensAreNotKept() {
+    TokenDenylist node = newNode();
+    try {
+        node.revoke("jti-1", "user-1", Instant.now().minusSeconds(1));
+
+        assertThat(node.isRevoked("jti-1")).isFalse();
+        assertThat(mongoTemplate.findById("jti-1", RevokedTokenEntity.class)).isNull();
+    } finally {
+        node.stop();
+    }
+}
+
+private static TokenDenylist newNode() {
+    // A long poll interval: the tests poll by hand
+    TokenDenylist node = new TokenDenylist(mongoTemplate, new TaskThreads(false, 1), new SimpleMeterRegistry(), 1000, 0.001, 3_600_000);
+    node.start();
+    return node;
+}
+}
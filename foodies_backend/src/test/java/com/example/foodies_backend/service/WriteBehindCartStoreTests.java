@@ -0,0 +1,174 @@
+package com.example.foodies_backend.service;
+
+import com.example.foodies_backend.RequiresMongo;
+import com.example.foodies_backend.TestMongo;
+import com.example.foodies_backend.config.TaskThreads;
+import com.example.foodies_backend.entity.CartEntity;
+import com.example.foodies_backend.repository.CartRespository;
+import com.example.foodies_backend.repository.CartRespositoryCustomImpl;
+import com.mongodb.client.MongoClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against a real mongod, see TestMongo; the flusher is never started, the tests flush by hand
+@RequiresMongo
+class WriteBehindCartStoreTests {
+
+private static MongoClient client;
+private static MongoTemplate mongoTemplate;
+private static CartRespository cartRespository;
+
+private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+@BeforeAll
+static void connect() {
+    client = TestMongo.client();
+    mongoTemplate = new MongoTemplate(client, TestMongo.DATABASE);
+    cartRespository = new MongoRepositoryFactory(mongoTemplate).getRepository(CartRespository.class,
+            RepositoryComposition.RepositoryFragments.just(new CartRespositoryCustomImpl(mongoTemplate)));
+}
+
+@AfterAll
+static void disconnect() {
+    client.close();
+}
+
+@BeforeEach
+void clearCarts() {
+    mongoTemplate.remove(new Query(), CartEntity.class);
+}
+
+@Test
+void changesStayInMemoryUntilFlushedAndThenBecomeOneWrite() {
+    WriteBehindCartStore store = newStore(500, 600_000);
+    store.applyChanges("user-1", Map.of("food1", 1), Map.of(), true);
+    store.applyChanges("user-1", Map.of("food1", 2), Map.of(), true);
+    store.applyChanges("user-1", Map.of(), Map.of("food2", 5), true);
+
+    assertThat(cartRespository.findByUserId("user-1")).isEmpty();
+    assertThat(store.find("user-1")).hasValueSatisfying(cart -> assertThat(cart.getItems()).containsOnly(
+            Map.entry("food1", 3), Map.entry("food2", 5)));
+
+    store.flushDirty();
+
+    assertThat(storedItems("user-1")).containsOnly(Map.entry("food1", 3), Map.entry("food2", 5));
+    assertThat(batchSizes().count()).isEqualTo(1);
+    assertThat(batchSizes().totalAmount()).isEqualTo(1);
+}
+
+@Test
+void dirtyCartsAreWrittenInBoundedBatches() {
+    WriteBehindCartStore store = newStore(2, 600_000);
+    for (int i = 0; i < 5; i++) {
+        store.applyChanges("user-" + i, Map.of("food1", i + 1), Map.of(), true);
+    }
+
+    store.flushDirty();
+
+    assertThat(batchSizes().count()).isEqualTo(3);
+    assertThat(batchSizes().max()).isEqualTo(2);
+    for (int i = 0; i < 5; i++) {
+        assertThat(storedItems("user-" + i)).containsOnly(Map.entry("food1", i + 1));
+    }
+}
+
+@Test
+void flushingOneUserWritesOnlyTheirCart() {
+    WriteBehindCartStore store = newStore(500, 600_000);
+    store.applyChanges("user-a", Map.of("food1", 1), Map.of(), true);
+    store.applyChanges("user-b", Map.of("food1", 1), Map.of(), true);
+
+    store.flush("user-a");
+
+    assertThat(cartRespository.findByUserId("user-a")).isPresent();
+    assertThat(cartRespository.findByUserId("user-b")).isEmpty();
+}
+
+@Test
+void parallelChangesToOneCartAreAllKept() throws Exception {
+    WriteBehindCartStore store = newStore(500, 600_000);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+        List<Future<?>> results = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    store.applyChanges("user-1", Map.of("food1", 1), Map.of(), true);
+                    // Flushes racing with the changes must not drop any of them either
+                    if (i % 100 == 0) {
+                        store.flushDirty();
+                    }
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get();
+        }
+    } finally {
+        pool.shutdown();
+    }
+
+    store.flushDirty();
+
+    assertThat(storedItems("user-1")).containsOnly(Map.entry("food1", 4000));
+}
+
+@Test
+void idleCartsAreEvictedOnceWrittenAndReadBackOnNextUse() {
+    // A negative idle time makes every written cart count as idle
+    WriteBehindCartStore store = newStore(500, -1_000);
+    store.applyChanges("user-1", Map.of("food1", 2), Map.of(), true);
+
+    store.flushDirty();
+
+    assertThat(meterRegistry.get("foodies.cart.live").gauge().value()).isZero();
+    assertThat(store.find("user-1")).hasValueSatisfying(cart -> assertThat(cart.getItems()).containsOnly(Map.entry("food1", 2)));
+    assertThat(meterRegistry.get("foodies.cart.live").gauge().value()).isEqualTo(1);
+}
+
+@Test
+void deletesAreWrittenThrough() {
+    WriteBehindCartStore store = newStore(500, 600_000);
+    store.applyChanges("user-1", Map.of("food1", 1), Map.of(), true);
+    store.flushDirty();
+    store.applyChanges("user-1", Map.of("food1", 1), Map.of(), true);
+
+    store.delete("user-1");
+
+    assertThat(cartRespository.findByUserId("user-1")).isEmpty();
+    assertThat(store.find("user-1")).isEmpty();
+    // Nothing left to write that could bring the cart back
+    store.flushDirty();
+    assertThat(cartRespository.findByUserId("user-1")).isEmpty();
+}
+
+private WriteBehindCartStore newStore(int maxBatchSize, long idleEvictionMillis) {
+    return new WriteBehindCartStore(cartRespository, mongoTemplate, meterRegistry, new TaskThreads(false, 1),
+            60_000, maxBatchSize, idleEvictionMillis);
+}
+
+private DistributionSummary batchSizes() {
+    return meterRegistry.get("foodies.cart.flush.batch.size").summary();
+}
+
+private static Map<String, Integer> storedItems(String userId) {
+    return cartRespository.findByUserId(userId).map(CartEntity::getItems).orElseThrow();
+}
+}